@@ -2,7 +2,7 @@ package com.example;
 
 public abstract class Activity {
     private String name;
-    private int durationInSlots; // 1 slot = 15 minutes
+    private int durationInSlots; // in slots of the SlotGrid it is scheduled on
 
     public Activity(String name, int durationInSlots) {
         this.name = name;
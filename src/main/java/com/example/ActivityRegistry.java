@@ -0,0 +1,119 @@
+package com.example;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Interns activities to small integer ids so a {@link Timetable} can store one
+ * {@code int} per slot instead of an object reference. Id 0 always means "free".
+ * Ids of activities taken back out of a timetable are {@link #release released} and
+ * handed out again, so edits do not grow the id space, as long as only one timetable is
+ * built on the registry.
+ *
+ * Tasks and events are interned by identity, since two tasks with the same name are
+ * still different tasks. Fixed activities such as sleep and work are flyweights:
+ * {@link #fixed} hands out one shared instance per name and duration.
+ */
+public class ActivityRegistry {
+    public static final int FREE = 0;
+    // Largest id the backing array can hold
+    private static final int MAX_ID = Integer.MAX_VALUE - 9;
+
+    private volatile Activity[] byId = new Activity[16];
+    private int nextId = 1;
+    // Released ids, reused before nextId moves on
+    private final java.util.ArrayDeque<Integer> freeIds = new java.util.ArrayDeque<>();
+    // Timetables built on this registry; with more than one, any of them may still hold a released id
+    private int owners;
+    private final Map<Activity, Integer> ids = new IdentityHashMap<>();
+    private final Map<String, FixedActivity> fixedActivities = new HashMap<>();
+
+    /** Returns the id for {@code activity}, assigning one on first sight. Null maps to {@link #FREE}. */
+    public synchronized int intern(Activity activity) {
+        if (activity == null) {
+            return FREE;
+        }
+        Integer id = ids.get(activity);
+        if (id != null) {
+            return id;
+        }
+        Activity[] table = byId;
+        int assigned;
+        if (!freeIds.isEmpty()) {
+            assigned = freeIds.pop();
+        } else {
+            if (nextId > MAX_ID) {
+                throw new IllegalStateException("Too many distinct activities in one timetable: " + nextId);
+            }
+            if (nextId == table.length) {
+                table = java.util.Arrays.copyOf(table, (int) Math.min(table.length * 2L, MAX_ID + 1L));
+            }
+            assigned = nextId++;
+        }
+        table[assigned] = activity;
+        ids.put(activity, assigned);
+        byId = table; // volatile write publishes the new entry to readers
+        return assigned;
+    }
+
+    /** Id already assigned to {@code activity}, or {@link #FREE} if it was never interned. */
+    public synchronized int idOf(Activity activity) {
+        Integer id = activity == null ? null : ids.get(activity);
+        return id == null ? FREE : id;
+    }
+
+    // Called by every timetable built on this registry
+    synchronized void addOwner() {
+        owners++;
+    }
+
+    /**
+     * Frees the id of an activity that no slot holds any more, for a later activity to
+     * take. Does nothing for an activity that was never interned, nor while more than one
+     * timetable is built on this registry: the others may still hold the id, and would
+     * show whatever activity got it next.
+     */
+    public synchronized void release(Activity activity) {
+        if (owners > 1) {
+            return;
+        }
+        Integer id = activity == null ? null : ids.remove(activity);
+        if (id != null) {
+            Activity[] table = byId;
+            table[id] = null;
+            byId = table;
+            freeIds.push(id);
+        }
+    }
+
+    /**
+     * An independent registry with the same ids, for a timetable that starts as a copy of
+     * one on this registry: ids copied across keep their meaning, and later interning or
+     * releasing on either side does not reach the other.
+     */
+    synchronized ActivityRegistry copy() {
+        ActivityRegistry copy = new ActivityRegistry();
+        copy.byId = byId.clone();
+        copy.nextId = nextId;
+        copy.ids.putAll(ids);
+        copy.fixedActivities.putAll(fixedActivities);
+        copy.freeIds.addAll(freeIds);
+        return copy;
+    }
+
+    /** Shared instance for a fixed activity, so repeated sleep/work slots cost nothing extra. */
+    public synchronized FixedActivity fixed(String name, int durationInSlots) {
+        return fixedActivities.computeIfAbsent(name + '\u0000' + durationInSlots,
+                key -> new FixedActivity(name, durationInSlots));
+    }
+
+    public Activity get(int id) {
+        return id == FREE ? null : byId[id];
+    }
+
+    /** One past the highest id handed out so far; released ids below it map to null. */
+    public synchronized int size() {
+        return nextId;
+    }
+}
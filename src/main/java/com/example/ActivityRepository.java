@@ -2,21 +2,56 @@ package com.example;
 
 import java.io.File;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 public class ActivityRepository {
     private static final String DB_URL = initializeDbUrl();
     private static final String DB_DRIVER = "org.sqlite.JDBC";
+    // Store per database and storage; its schema is checked when it is first created
+    private static final Map<String, TimetableStore> STORES = new java.util.concurrent.ConcurrentHashMap<>();
+
+    private static final String FIND_EVENT = "SELECT id FROM activities WHERE name=? AND event_date=? AND start_slot=?";
+    private static final String SELECT_SAVED_GENERATION = "SELECT fingerprint FROM generation_cache WHERE id = 1";
+    private static final String INSERT_ACTIVITY = "INSERT INTO activities (name, durationInSlots, type, event_date, start_slot) VALUES (?, ?, ?, ?, ?)";
+
+    private final ConnectionManager connections;
+    private final TimetableStore store;
+
+    /**
+     * How saved timetable days are laid out. Each keeps its own tables and nothing moves
+     * between them, so use one per database.
+     */
+    public enum Storage {
+        /** One row per run of slots holding the same activity; the default. */
+        SPANS,
+        /** One row per day holding each slot's activity id in a blob, run-length encoded when shorter. */
+        DAY_BLOBS
+    }
+
+    /** Receives stored days from {@link #forEachDay}. */
+    @FunctionalInterface
+    public interface DayVisitor {
+        /**
+         * {@code activityIds} holds each slot's activity id, 0 when free. The array is
+         * reused for the next day, so copy it to keep it.
+         */
+        void visit(String date, SlotGrid grid, int[] activityIds);
+    }
 
     private static String initializeDbUrl() {
         String appDataPath = System.getenv("APPDATA");
@@ -31,9 +66,43 @@ public class ActivityRepository {
         return "jdbc:sqlite:" + dbDir.getAbsolutePath() + File.separator + "activities.db";
     }
 
+    /**
+     * Repositories are cheap: every one on the same database shares its connections and
+     * prepared statements (see {@link ConnectionManager}).
+     */
     public ActivityRepository() {
+        this(Storage.SPANS);
+    }
+
+    public ActivityRepository(Storage storage) {
+        this(DB_URL, storage);
+    }
+
+    // For another database file, such as a benchmark's scratch copy
+    ActivityRepository(String dbUrl, Storage storage) {
         loadDriver();
-        createTablesIfNotExist();
+        connections = ConnectionManager.forUrl(dbUrl);
+        boolean[] opened = {false};
+        store = STORES.computeIfAbsent(dbUrl + "#" + storage, key -> {
+            TimetableStore created = storage == Storage.DAY_BLOBS ? new DayBlobStore() : new SpanStore();
+            createTablesIfNotExist(created);
+            opened[0] = true;
+            return created;
+        });
+        // Once per database and storage, right after its tables are in place
+        if (opened[0]) {
+            reportTableScans();
+        }
+    }
+
+    private void reportTableScans() {
+        try {
+            for (String scan : checkQueryPlans()) {
+                System.err.println("Full table scan in a hot query, " + scan);
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
     }
 
     private void loadDriver() {
@@ -44,12 +113,20 @@ public class ActivityRepository {
         }
     }
 
-    private Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(DB_URL);
+    private void createTablesIfNotExist(TimetableStore created) {
+        try {
+            connections.transaction(session -> {
+                createTables(session);
+                created.createTables(session);
+                return null;
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
     }
 
-    private void createTablesIfNotExist() {
-        try (Connection conn = getConnection(); Statement stmt = conn.createStatement()) {
+    private static void createTables(ConnectionManager.Session session) throws SQLException {
+        try (Statement stmt = session.connection().createStatement()) {
             stmt.executeUpdate("CREATE TABLE IF NOT EXISTS activities (" +
                     "id INTEGER PRIMARY KEY AUTOINCREMENT," +
                     "name TEXT NOT NULL," +
@@ -58,144 +135,368 @@ public class ActivityRepository {
                     "event_date TEXT," + // ISO yyyy-MM-dd, nullable
                     "start_slot INTEGER" + // nullable
                     ")");
-            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS timetable_entries (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT," +
-                    "date TEXT NOT NULL," + // ISO yyyy-MM-dd
-                    "slot INTEGER NOT NULL," + // 0-47
-                    "activity_id INTEGER NOT NULL," +
-                    "FOREIGN KEY(activity_id) REFERENCES activities(id)" +
+            // Lookup key for an event's row when saving
+            stmt.executeUpdate("CREATE INDEX IF NOT EXISTS idx_activities_event ON activities(name, event_date, start_slot)");
+            // At most one row: the generation the timetable entries were saved from
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS generation_cache (" +
+                    "id INTEGER PRIMARY KEY CHECK (id = 1)," +
+                    "fingerprint TEXT NOT NULL," + // GenerationKey
+                    "saved_at TEXT NOT NULL" +
                     ")");
+        }
+    }
+
+    /**
+     * Runs the hot queries of the repository and its storage through EXPLAIN QUERY PLAN
+     * and returns every step that scans a whole table, empty when each one is answered
+     * through an index. A query that cannot be explained throws rather than passing. Also
+     * run when the first repository opens a database, which reports to stderr.
+     */
+    public List<String> checkQueryPlans() throws SQLException {
+        Map<String, String> queries = new java.util.LinkedHashMap<>();
+        queries.put("event id", FIND_EVENT);
+        queries.put("saved generation", SELECT_SAVED_GENERATION);
+        queries.putAll(store.hotQueries());
+        return connections.read(session -> QueryPlans.tableScans(session, queries));
+    }
+
+    /** Stores the activity and returns its database id, or -1 if it could not be stored. */
+    public int addActivity(Activity activity) {
+        try {
+            return connections.write(session -> insertActivity(session, activity));
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return -1;
     }
 
-    public void addActivity(Activity activity) {
-        String sql = "INSERT INTO activities (name, durationInSlots, type, event_date, start_slot) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, activity.getName());
-            pstmt.setInt(2, activity.getDurationInSlots());
-            pstmt.setString(3, activity.getClass().getSimpleName());
-            if (activity instanceof Event) {
-                Event event = (Event) activity;
-                pstmt.setString(4, event.getEventDate().toString());
-                pstmt.setInt(5, event.getStartSlot());
-            } else {
-                pstmt.setNull(4, java.sql.Types.VARCHAR);
-                pstmt.setNull(5, java.sql.Types.INTEGER);
-            }
-            pstmt.executeUpdate();
+    /**
+     * Stores all the activities in one transaction. The returned ids, keyed by identity,
+     * can be handed to {@link #saveTimetable(Timetable, java.time.LocalDate, java.time.LocalDate, Map, Map)}
+     * so saving never has to look an activity up again. Empty if the insert failed.
+     */
+    public Map<Activity, Integer> addActivities(java.util.Collection<? extends Activity> activities) {
+        Map<Activity, Integer> ids = new IdentityHashMap<>();
+        try {
+            connections.transaction(session -> {
+                for (Activity activity : activities) {
+                    ids.put(activity, insertActivity(session, activity));
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
+            ids.clear();
+        }
+        return ids;
+    }
+
+    private static int insertActivity(ConnectionManager.Session session, Activity activity) throws SQLException {
+        PreparedStatement pstmt = session.prepareReturningKeys(INSERT_ACTIVITY);
+        pstmt.setString(1, activity.getName());
+        pstmt.setInt(2, activity.getDurationInSlots());
+        pstmt.setString(3, activity.getClass().getSimpleName());
+        if (activity instanceof Event) {
+            Event event = (Event) activity;
+            pstmt.setString(4, event.getEventDate().toString());
+            pstmt.setInt(5, event.getStartSlot());
+        } else {
+            pstmt.setNull(4, java.sql.Types.VARCHAR);
+            pstmt.setNull(5, java.sql.Types.INTEGER);
+        }
+        pstmt.executeUpdate();
+        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+            return keys.next() ? keys.getInt(1) : -1;
         }
     }
 
     public List<Activity> getAllActivities() {
         List<Activity> activities = new ArrayList<>();
         String sql = "SELECT name, durationInSlots, type, event_date, start_slot FROM activities";
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                String name = rs.getString("name");
-                int duration = rs.getInt("durationInSlots");
-                String type = rs.getString("type");
-                Activity activity;
-                switch (type) {
-                    case "FixedActivity":
-                        activity = new FixedActivity(name, duration);
-                        break;
-                    case "Event":
-                        String dateStr = rs.getString("event_date");
-                        java.time.LocalDate eventDate = (dateStr != null) ? java.time.LocalDate.parse(dateStr) : java.time.LocalDate.now();
-                        int startSlot = rs.getInt("start_slot");
-                        activity = new Event(name, duration, eventDate, startSlot);
-                        break;
-                    case "Task":
-                        activity = new Task(name, duration);
-                        break;
-                    default:
-                        continue;
+        try {
+            connections.read(session -> {
+                try (ResultSet rs = session.prepare(sql).executeQuery()) {
+                    while (rs.next()) {
+                        String name = rs.getString("name");
+                        int duration = rs.getInt("durationInSlots");
+                        String type = rs.getString("type");
+                        Activity activity;
+                        switch (type) {
+                            case "FixedActivity":
+                                activity = new FixedActivity(name, duration);
+                                break;
+                            case "Event":
+                                String dateStr = rs.getString("event_date");
+                                java.time.LocalDate eventDate = (dateStr != null) ? java.time.LocalDate.parse(dateStr) : java.time.LocalDate.now();
+                                int startSlot = rs.getInt("start_slot");
+                                activity = new Event(name, duration, eventDate, startSlot);
+                                break;
+                            case "Task":
+                                activity = new Task(name, duration);
+                                break;
+                            default:
+                                continue;
+                        }
+                        activities.add(activity);
+                    }
                 }
-                activities.add(activity);
-            }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return activities;
     }
 
-    public void saveTimetable(Timetable timetable, java.time.LocalDate startDate, java.time.LocalDate endDate, Map<String, Integer> activityNameToId) {
-        Activity[][] slots = timetable.getSlots();
+    public SaveStats saveTimetable(Timetable timetable, java.time.LocalDate startDate, java.time.LocalDate endDate, Map<String, Integer> activityNameToId) {
+        return saveTimetable(timetable, startDate, endDate, activityNameToId, Collections.emptyMap());
+    }
+
+    /**
+     * Replaces the saved entries from {@code startDate} to {@code endDate} in one
+     * transaction. Activities found in {@code activityIds} (by identity, as returned by
+     * {@link #addActivities}) are not looked up; others resolve by name, or for events by
+     * name, date and start slot, once per activity rather than once per slot.
+     */
+    public SaveStats saveTimetable(Timetable timetable, java.time.LocalDate startDate, java.time.LocalDate endDate,
+                                   Map<String, Integer> activityNameToId, Map<Activity, Integer> activityIds) {
         int days = (int) java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate) + 1;
-        try (Connection conn = getConnection()) {
-            // Clear previous timetable entries for this date range
-            try (PreparedStatement del = conn.prepareStatement("DELETE FROM timetable_entries WHERE date >= ? AND date <= ?")) {
-                del.setString(1, startDate.toString());
-                del.setString(2, endDate.toString());
-                del.executeUpdate();
-            }
-            // Insert new timetable entries
-            String insertSql = "INSERT INTO timetable_entries (date, slot, activity_id) VALUES (?, ?, ?)";
-            try (PreparedStatement pstmt = conn.prepareStatement(insertSql)) {
-                Set<String> seen = new HashSet<>();
+        long started = System.nanoTime();
+        try {
+            long rows = connections.transaction(session -> {
+                forgetSavedGeneration(session);
+                // Clear previous timetable entries for this date range
+                store.deleteRange(session, startDate.toString(), endDate.toString());
+                ActivityIds ids = new ActivityIds(session, activityNameToId, activityIds);
+                TimetableStore.Writer writer = store.writer(session);
                 for (int day = 0; day < days; day++) {
+                    int d = day;
+                    addDay(writer, ids, slot -> timetable.getActivity(d, slot), timetable.getSlotGrid(), startDate.plusDays(day));
+                }
+                return writer.finish();
+            });
+            return new SaveStats(rows, System.nanoTime() - started);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new SaveStats(0, System.nanoTime() - started);
+    }
+
+    /**
+     * Rewrites only the given days of a saved timetable, for example the days returned by
+     * the incremental edits on {@link SchedulerService}. Day indices count from
+     * {@code startDate}, which must be the date the timetable was generated from.
+     */
+    public SaveStats saveTimetableDays(Timetable timetable, java.time.LocalDate startDate, java.util.Collection<Integer> days, Map<String, Integer> activityNameToId) {
+        long started = System.nanoTime();
+        if (days.isEmpty()) {
+            return new SaveStats(0, 0);
+        }
+        try {
+            long rows = connections.transaction(session -> {
+                forgetSavedGeneration(session);
+                ActivityIds ids = new ActivityIds(session, activityNameToId, Collections.emptyMap());
+                TimetableStore.Writer writer = store.writer(session);
+                // A day listed twice would be written twice
+                for (int day : new java.util.TreeSet<>(days)) {
                     java.time.LocalDate date = startDate.plusDays(day);
-                    for (int slot = 0; slot < 48; slot++) {
-                        Activity act = slots[day][slot];
-                        if (act instanceof Event) {
-                            String key = "EVENT:" + ((Event) act).getName() + ":" + ((Event) act).getEventDate() + ":" + ((Event) act).getStartSlot();
-                            if (!seen.contains(key + ":" + date + ":" + slot)) {
-                                Integer actId = null;
-                                String sql = "SELECT id FROM activities WHERE name=? AND event_date=? AND start_slot=?";
-                                try (PreparedStatement findStmt = conn.prepareStatement(sql)) {
-                                    findStmt.setString(1, act.getName());
-                                    findStmt.setString(2, ((Event) act).getEventDate().toString());
-                                    findStmt.setInt(3, ((Event) act).getStartSlot());
-                                    try (ResultSet rs = findStmt.executeQuery()) {
-                                        if (rs.next()) actId = rs.getInt("id");
-                                    }
-                                }
-                                if (actId != null) {
-                                    pstmt.setString(1, date.toString());
-                                    pstmt.setInt(2, slot);
-                                    pstmt.setInt(3, actId);
-                                    pstmt.addBatch();
-                                    seen.add(key + ":" + date + ":" + slot);
-                                }
-                            }
-                        } else if (act != null) {
-                            String key = act.getClass().getSimpleName() + ":" + act.getName();
-                            if (!seen.contains(key + ":" + date + ":" + slot)) {
-                                Integer actId = activityNameToId.get(act.getName());
-                                if (actId != null) {
-                                    pstmt.setString(1, date.toString());
-                                    pstmt.setInt(2, slot);
-                                    pstmt.setInt(3, actId);
-                                    pstmt.addBatch();
-                                    seen.add(key + ":" + date + ":" + slot);
-                                }
+                    writer.deleteDay(date.toString());
+                    addDay(writer, ids, slot -> timetable.getActivity(day, slot), timetable.getSlotGrid(), date);
+                }
+                return writer.finish();
+            });
+            return new SaveStats(rows, System.nanoTime() - started);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new SaveStats(0, System.nanoTime() - started);
+    }
+
+    /**
+     * Stores a streamed timetable (see {@link SchedulerService#streamTimetable}) day by day.
+     * The next day is only requested once the previous one is written, so the generator
+     * never runs more than the stream's window ahead of the database. Each day is committed
+     * on its own, so a failed stream keeps the days before it. Blocks until the stream
+     * completes, holding the writer connection throughout.
+     */
+    public SaveStats saveTimetable(Flow.Publisher<ScheduledDay> days, Map<String, Integer> activityNameToId) {
+        return saveTimetable(days, activityNameToId, null, day -> { });
+    }
+
+    /**
+     * As above, handing every day to {@code onSaved} (on the stream's delivery thread) once
+     * it is committed, so readers can follow the timetable as it is generated. Cancelling
+     * {@code control}, or passing its deadline, stops the stream before the next day and
+     * throws {@link CancellationException}; a null control never stops it.
+     */
+    public SaveStats saveTimetable(Flow.Publisher<ScheduledDay> days, Map<String, Integer> activityNameToId,
+                                   GenerationControl control, Consumer<ScheduledDay> onSaved) {
+        CompletableFuture<Long> done = new CompletableFuture<>();
+        long started = System.nanoTime();
+        try {
+            long rows = connections.write(session -> {
+                forgetSavedGeneration(session);
+                ActivityIds ids = new ActivityIds(session, activityNameToId, Collections.emptyMap());
+                TimetableStore.Writer writer = store.writer(session);
+                Connection connection = session.connection();
+                days.subscribe(new Flow.Subscriber<ScheduledDay>() {
+                    private Flow.Subscription subscription;
+
+                    @Override
+                    public void onSubscribe(Flow.Subscription subscription) {
+                        this.subscription = subscription;
+                        subscription.request(1);
+                    }
+
+                    @Override
+                    public void onNext(ScheduledDay day) {
+                        try {
+                            if (control != null) {
+                                control.checkpoint();
                             }
+                            connection.setAutoCommit(false);
+                            writer.deleteDay(day.getDate().toString());
+                            addDay(writer, ids, day::getActivity, day.getSlotGrid(), day.getDate());
+                            writer.finish();
+                            connection.commit();
+                            connection.setAutoCommit(true);
+                            onSaved.accept(day);
+                            subscription.request(1);
+                        } catch (SQLException | RuntimeException e) {
+                            subscription.cancel();
+                            done.completeExceptionally(e);
                         }
                     }
+
+                    @Override
+                    public void onError(Throwable throwable) {
+                        done.completeExceptionally(throwable);
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        try {
+                            done.complete(writer.finish());
+                        } catch (SQLException e) {
+                            done.completeExceptionally(e);
+                        }
+                    }
+                });
+                try {
+                    return done.join();
+                } catch (CompletionException e) {
+                    // Rethrown so the writer rolls back the day in progress
+                    if (e.getCause() instanceof CancellationException) {
+                        throw (CancellationException) e.getCause();
+                    }
+                    throw e.getCause() instanceof SQLException ? (SQLException) e.getCause() : new SQLException(e.getCause());
                 }
-                pstmt.executeBatch();
-            }
+            });
+            return new SaveStats(rows, System.nanoTime() - started);
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return new SaveStats(0, System.nanoTime() - started);
+    }
+
+    private static void addDay(TimetableStore.Writer writer, ActivityIds ids, IntFunction<Activity> activityAt, SlotGrid grid,
+                               java.time.LocalDate date) throws SQLException {
+        int[] slotIds = new int[grid.getSlotsPerDay()];
+        for (int slot = 0; slot < slotIds.length; slot++) {
+            Activity act = activityAt.apply(slot);
+            // Free, or an activity that is not stored
+            slotIds[slot] = act == null ? 0 : Math.max(0, ids.idOf(act));
+        }
+        writer.addDay(date.toString(), grid, slotIds);
+    }
+
+    /**
+     * Database ids of the activities met during one save, each resolved once. Adjacent
+     * slots nearly always hold the same activity, so the last answer is kept at hand too.
+     */
+    private static final class ActivityIds {
+        private final ConnectionManager.Session session;
+        private final Map<String, Integer> byName;
+        private final Map<Activity, Integer> known = new IdentityHashMap<>();
+        private Activity last;
+        private int lastId;
+
+        ActivityIds(ConnectionManager.Session session, Map<String, Integer> byName, Map<Activity, Integer> given) {
+            this.session = session;
+            this.byName = byName;
+            known.putAll(given);
+        }
+
+        // -1 when the activity is not stored, and its slots are skipped
+        int idOf(Activity act) throws SQLException {
+            if (act == last) {
+                return lastId;
+            }
+            Integer id = known.get(act);
+            if (id == null) {
+                id = lookup(act);
+                known.put(act, id);
+            }
+            last = act;
+            lastId = id;
+            return id;
+        }
+
+        private int lookup(Activity act) throws SQLException {
+            if (!(act instanceof Event)) {
+                return byName.getOrDefault(act.getName(), -1);
+            }
+            Event event = (Event) act;
+            PreparedStatement findStmt = session.prepare(FIND_EVENT);
+            findStmt.setString(1, event.getName());
+            findStmt.setString(2, event.getEventDate().toString());
+            findStmt.setInt(3, event.getStartSlot());
+            try (ResultSet rs = findStmt.executeQuery()) {
+                return rs.next() ? rs.getInt("id") : -1;
+            }
+        }
+    }
+
+    /** How many rows a save wrote and how long it took. */
+    public static final class SaveStats {
+        private final long rows;
+        private final long elapsedNanos;
+
+        SaveStats(long rows, long elapsedNanos) {
+            this.rows = rows;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d rows in %.1f ms (%.0f rows/s)", rows, elapsedNanos / 1e6, getRowsPerSecond());
+        }
     }
 
     public Map<String, Integer> getActivityNameToIdMap() {
         Map<String, Integer> map = new HashMap<>();
         String sql = "SELECT id, name FROM activities";
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                map.put(rs.getString("name"), rs.getInt("id"));
-            }
+        try {
+            connections.read(session -> {
+                try (ResultSet rs = session.prepare(sql).executeQuery()) {
+                    while (rs.next()) {
+                        map.put(rs.getString("name"), rs.getInt("id"));
+                    }
+                }
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -203,63 +504,111 @@ public class ActivityRepository {
     }
 
     public List<String> getAllTimetableDates() {
-        List<String> dates = new ArrayList<>();
-        String sql = "SELECT DISTINCT date FROM timetable_entries ORDER BY date";
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                dates.add(rs.getString("date"));
-            }
+        try {
+            return connections.read(store::dates);
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return dates;
+        return new ArrayList<>();
     }
 
     public List<TimetableEntry> getTimetableForDate(String date) {
-        List<TimetableEntry> entries = new ArrayList<>();
-        String sql = "SELECT t.slot, a.name, a.type, a.event_date, a.start_slot FROM timetable_entries t JOIN activities a ON t.activity_id = a.id WHERE t.date = ? ORDER BY t.slot";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, date);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) {
-                    int slot = rs.getInt("slot");
-                    String name = rs.getString("name");
-                    String type = rs.getString("type");
-                    entries.add(new TimetableEntry(date, slot, name, type));
-                }
-            }
+        try {
+            return connections.read(session -> store.day(session, date));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Streams the stored days from {@code startDate} to {@code endDate} (ISO dates,
+     * inclusive) to {@code visitor} in date order, as slot arrays rather than entries.
+     */
+    public void forEachDay(String startDate, String endDate, DayVisitor visitor) {
+        try {
+            connections.read(session -> {
+                store.forEachDay(session, startDate, endDate, visitor);
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return entries;
     }
 
     public void deleteTimetableForDateRange(String startDate, String endDate) {
-        String sql = "DELETE FROM timetable_entries WHERE date >= ? AND date <= ?";
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, startDate);
-            pstmt.setString(2, endDate);
-            pstmt.executeUpdate();
+        try {
+            connections.write(session -> {
+                forgetSavedGeneration(session);
+                store.deleteRange(session, startDate, endDate);
+                return null;
+            });
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Records that the timetable entries now hold exactly the generation with this key.
+     * Any later write to the entries forgets it again, so a stored key always describes
+     * what is in the table.
+     */
+    public void setSavedGeneration(GenerationKey key) {
+        String sql = "INSERT OR REPLACE INTO generation_cache (id, fingerprint, saved_at) VALUES (1, ?, ?)";
+        try {
+            connections.write(session -> {
+                PreparedStatement pstmt = session.prepare(sql);
+                pstmt.setString(1, key.toString());
+                pstmt.setString(2, java.time.Instant.now().toString());
+                return pstmt.executeUpdate();
+            });
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Key of the generation the timetable entries were saved from, or null if unknown. */
+    public GenerationKey getSavedGeneration() {
+        try {
+            return connections.read(session -> {
+                try (ResultSet rs = session.prepare(SELECT_SAVED_GENERATION).executeQuery()) {
+                    return rs.next() ? GenerationKey.parse(rs.getString("fingerprint")) : null;
+                }
+            });
+        } catch (SQLException | IllegalArgumentException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    private static void forgetSavedGeneration(ConnectionManager.Session session) throws SQLException {
+        session.prepare("DELETE FROM generation_cache").executeUpdate();
+    }
+
+    /** A run of slots holding one activity on one date: {@code slot} up to {@code endSlot}, exclusive. */
     public static class TimetableEntry {
         public final String date;
         public final int slot;
+        public final int endSlot;
         public final String activityName;
         public final String activityType;
+        public final SlotGrid slotGrid;
 
         public TimetableEntry(String date, int slot, String activityName, String activityType) {
+            this(date, slot, activityName, activityType, SlotGrid.QUARTER_HOUR);
+        }
+
+        public TimetableEntry(String date, int slot, String activityName, String activityType, SlotGrid slotGrid) {
+            this(date, slot, slot + 1, activityName, activityType, slotGrid);
+        }
+
+        public TimetableEntry(String date, int slot, int endSlot, String activityName, String activityType, SlotGrid slotGrid) {
             this.date = date;
             this.slot = slot;
+            this.endSlot = endSlot;
             this.activityName = activityName;
             this.activityType = activityType;
+            this.slotGrid = slotGrid;
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,286 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Searches for the placement that leaves the fewest tasks unscheduled, within a
+ * wall-clock budget. The greedy result is the first incumbent. A depth-first branch
+ * and bound then goes through the tasks longest first, trying each at the start of
+ * every free gap on the days it is allowed on, and finally leaving it out. A branch is
+ * cut as soon as the tasks it already left out, plus a bound on how many of the rest
+ * cannot fit in the remaining per-day capacity, is no better than the incumbent.
+ *
+ * The search only counts unscheduled tasks; preferred times are ignored. When the
+ * budget runs out the best placement found so far is written to the timetable.
+ */
+public class BranchAndBoundPlacement implements PlacementStrategy {
+    private static final int NODES_PER_CLOCK_CHECK = 1024;
+
+    private final java.time.Duration budget;
+
+    public BranchAndBoundPlacement(java.time.Duration budget) {
+        if (budget.isNegative()) {
+            throw new IllegalArgumentException("Budget must not be negative: " + budget);
+        }
+        this.budget = budget;
+    }
+
+    public java.time.Duration getBudget() {
+        return budget;
+    }
+
+    @Override
+    public List<Task> placeTasks(PlacementContext context, List<Task> tasks) {
+        return new Search(context, tasks, System.nanoTime() + budget.toNanos()).run();
+    }
+
+    private static final class Search {
+        private final PlacementContext context;
+        private final Timetable timetable;
+        private final int slotsPerDay;
+        private final List<Task> input;
+        private final long deadline;
+
+        // Searchable tasks, longest first; identical tasks end up next to each other
+        private Task[] order;
+        private int[] duration;
+        // tailSum[k] = total duration of the k shortest tasks
+        private long[] tailSum;
+        private int[] day;
+        private int[] start;
+        private int[] bestDay;
+        private int[] bestStart;
+        private int bestSkipped;
+        // Per day: free slots in gaps long enough for the shortest task, and their total
+        private int[] usable;
+        private long usableTotal;
+        private long nodes;
+        private boolean outOfTime;
+
+        Search(PlacementContext context, List<Task> tasks, long deadline) {
+            this.context = context;
+            this.timetable = context.getTimetable();
+            this.slotsPerDay = timetable.getSlotsPerDay();
+            this.input = tasks;
+            this.deadline = deadline;
+        }
+
+        List<Task> run() {
+            List<Task> searchable = new ArrayList<>();
+            for (Task task : input) {
+                int length = task.getDurationInSlots();
+                // The greedy pass can never place these either
+                if (length > 0 && length <= slotsPerDay) {
+                    searchable.add(task);
+                }
+            }
+            order = searchable.toArray(new Task[0]);
+            Arrays.sort(order, (a, b) -> {
+                int byLength = Integer.compare(b.getDurationInSlots(), a.getDurationInSlots());
+                if (byLength != 0) return byLength;
+                return Long.compare(targetKey(a), targetKey(b));
+            });
+            int n = order.length;
+            duration = new int[n];
+            tailSum = new long[n + 1];
+            for (int i = 0; i < n; i++) {
+                duration[i] = order[i].getDurationInSlots();
+            }
+            for (int k = 1; k <= n; k++) {
+                tailSum[k] = tailSum[k - 1] + duration[n - k];
+            }
+            day = new int[n];
+            start = new int[n];
+            bestDay = new int[n];
+            bestStart = new int[n];
+            Map<Task, Integer> position = new IdentityHashMap<>();
+            for (int i = 0; i < n; i++) {
+                position.put(order[i], i);
+            }
+
+            // The greedy pass is the incumbent to beat
+            Arrays.fill(bestDay, -1);
+            List<Task> greedyLeftOut = new ArrayList<>();
+            for (int k = 0; k < input.size(); k++) {
+                context.progress(k, input.size());
+                Task task = input.get(k);
+                int placedDay = context.placeGreedy(task);
+                Integer i = position.get(task);
+                if (placedDay < 0) {
+                    greedyLeftOut.add(task);
+                } else if (i != null) {
+                    bestDay[i] = placedDay;
+                    bestStart[i] = startOf(task, placedDay);
+                }
+            }
+            bestSkipped = greedyLeftOut.size() - (input.size() - n);
+            if (bestSkipped == 0) {
+                return greedyLeftOut;
+            }
+            for (int i = 0; i < n; i++) {
+                if (bestDay[i] >= 0) {
+                    context.remove(bestDay[i], bestStart[i], duration[i]);
+                }
+            }
+
+            usable = new int[timetable.getDays()];
+            for (int d = 0; d < usable.length; d++) {
+                usable[d] = usableSlots(d);
+                usableTotal += usable[d];
+            }
+            search(0, 0);
+
+            List<Task> unscheduled = new ArrayList<>();
+            for (Task task : input) {
+                Integer i = position.get(task);
+                if (i == null || bestDay[i] < 0) {
+                    unscheduled.add(task);
+                } else {
+                    context.place(task, bestDay[i], bestStart[i]);
+                }
+            }
+            return unscheduled;
+        }
+
+        private void search(int i, int skipped) {
+            if (++nodes % NODES_PER_CLOCK_CHECK == 0) {
+                // Tasks the best assignment so far places; only ever goes up
+                context.progress(order.length - bestSkipped, order.length);
+                if (System.nanoTime() > deadline) {
+                    outOfTime = true;
+                }
+            }
+            if (outOfTime) {
+                return;
+            }
+            if (i == order.length) {
+                if (skipped < bestSkipped) {
+                    bestSkipped = skipped;
+                    System.arraycopy(day, 0, bestDay, 0, day.length);
+                    System.arraycopy(start, 0, bestStart, 0, start.length);
+                }
+                return;
+            }
+            if (skipped + leftOutBound(i) >= bestSkipped) {
+                return;
+            }
+
+            Task task = order[i];
+            int length = duration[i];
+            // Identical tasks are interchangeable: place them in increasing (day, slot)
+            // order, and once one is left out leave out the rest as well
+            boolean sameAsPrevious = i > 0 && duration[i - 1] == length && targetKey(order[i - 1]) == targetKey(task);
+            if (!sameAsPrevious || day[i - 1] >= 0) {
+                int fromDay = sameAsPrevious ? day[i - 1] : 0;
+                for (int d = timetable.firstDayWithRoom(fromDay, length); d >= 0;
+                        d = timetable.firstDayWithRoom(d + 1, length)) {
+                    if (!context.isAllowed(task, d)) continue;
+                    int from = sameAsPrevious && d == day[i - 1] ? start[i - 1] + 1 : 0;
+                    while (true) {
+                        int s = SlotBitmap.findClearRun(timetable.occupancy(d), from, slotsPerDay, length);
+                        if (s < 0) break;
+                        // Later starts inside the same gap are left to the other tasks
+                        int gapEnd = SlotBitmap.nextSetBit(timetable.occupancy(d), s, slotsPerDay);
+                        place(task, d, s, length);
+                        day[i] = d;
+                        start[i] = s;
+                        search(i + 1, skipped);
+                        remove(d, s, length);
+                        if (outOfTime || skipped + leftOutBound(i) >= bestSkipped) {
+                            return;
+                        }
+                        from = gapEnd;
+                    }
+                }
+            }
+            day[i] = -1;
+            search(i + 1, skipped + 1);
+        }
+
+        /**
+         * Lower bound on how many of tasks [i, n) stay unscheduled: those longer than any
+         * free gap left, plus those that cannot fit even if only the shortest ones are
+         * placed into the usable free slots of all days.
+         */
+        private int leftOutBound(int i) {
+            int n = order.length;
+            // Durations only shrink from i on, so the tasks with no day left form a prefix
+            int lo = i, hi = n;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (timetable.firstDayWithRoom(0, duration[mid]) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            int tooLong = lo - i;
+            int rest = n - lo;
+            // Largest k with the k shortest of the rest fitting in the usable capacity
+            int low = 0, high = rest;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (tailSum[mid] <= usableTotal) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return tooLong + (rest - low);
+        }
+
+        private void place(Task task, int d, int s, int length) {
+            context.place(task, d, s);
+            updateUsable(d);
+        }
+
+        private void remove(int d, int s, int length) {
+            context.remove(d, s, length);
+            updateUsable(d);
+        }
+
+        private void updateUsable(int d) {
+            int now = usableSlots(d);
+            usableTotal += now - usable[d];
+            usable[d] = now;
+        }
+
+        // Free slots of the day in gaps that can hold at least the shortest task
+        private int usableSlots(int d) {
+            int shortest = order.length == 0 ? 1 : duration[order.length - 1];
+            long[] words = timetable.occupancy(d);
+            int total = 0;
+            int s = SlotBitmap.nextClearBit(words, 0, slotsPerDay);
+            while (s < slotsPerDay) {
+                int e = SlotBitmap.nextSetBit(words, s, slotsPerDay);
+                if (e - s >= shortest) {
+                    total += e - s;
+                }
+                s = SlotBitmap.nextClearBit(words, e, slotsPerDay);
+            }
+            return total;
+        }
+
+        private int startOf(Task task, int d) {
+            int id = timetable.getRegistry().idOf(task);
+            for (int s = 0; s < slotsPerDay; s++) {
+                if (timetable.getSlotId(d, s) == id) {
+                    return s;
+                }
+            }
+            throw new IllegalStateException("Task " + task.getName() + " is not on day " + d);
+        }
+
+        // Tasks with equal keys may go on the same days: -1 for any, 0-6 by weekday, or past that by date
+        private static long targetKey(Task task) {
+            if (task.getDate() != null) {
+                return 7 + task.getDate().toEpochDay();
+            }
+            return task.getTargetDay() == null ? -1 : task.getTargetDay();
+        }
+    }
+}
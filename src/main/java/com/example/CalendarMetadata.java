@@ -0,0 +1,155 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Per-generation calendar facts in primitive arrays, built once before the placement
+ * phases so the per-task loops never touch {@link LocalDate} or rescan slots.
+ *
+ * Weekdays use the scheduler's convention (0=Mon, 6=Sun). Day flags are bitmaps with
+ * one bit per day index.
+ */
+final class CalendarMetadata {
+    private final int days;
+    private final SlotGrid grid;
+    private long startEpochDay;
+    private int workdayBits; // bit w set when weekday w is a workday
+    private final byte[] weekday;
+    private final long[] workday;
+    private final long[] hasEvent;
+    private final int[] firstFreeSlot;
+
+    private CalendarMetadata(int days, SlotGrid grid) {
+        this.days = days;
+        this.grid = grid;
+        this.weekday = new byte[days];
+        this.workday = new long[SlotBitmap.wordsFor(days)];
+        this.hasEvent = new long[SlotBitmap.wordsFor(days)];
+        this.firstFreeSlot = new int[days];
+    }
+
+    static CalendarMetadata build(LocalDate startDate, int days, List<Integer> workdays, SlotGrid grid) {
+        CalendarMetadata meta = new CalendarMetadata(days, grid);
+        int workdayBits = 0;
+        for (Integer wd : workdays) {
+            if (wd != null && wd >= 0 && wd < 7) {
+                workdayBits |= 1 << wd;
+            }
+        }
+        meta.workdayBits = workdayBits;
+        meta.startEpochDay = startDate.toEpochDay();
+        int first = startDate.getDayOfWeek().getValue() - 1; // 1=Mon, 7=Sun
+        for (int day = 0; day < days; day++) {
+            int wd = (first + day) % 7;
+            meta.weekday[day] = (byte) wd;
+            if ((workdayBits & (1 << wd)) != 0) {
+                SlotBitmap.set(meta.workday, day);
+            }
+        }
+        return meta;
+    }
+
+    int days() {
+        return days;
+    }
+
+    SlotGrid getSlotGrid() {
+        return grid;
+    }
+
+    /** Day index of a date; negative before the first day, {@code >= days()} after the last. */
+    long dayIndexOf(LocalDate date) {
+        return date.toEpochDay() - startEpochDay;
+    }
+
+    int weekday(int day) {
+        return weekday[day];
+    }
+
+    boolean isWorkday(int day) {
+        return SlotBitmap.get(workday, day);
+    }
+
+    boolean isWorkdayOfWeek(int weekday) {
+        return (workdayBits & (1 << weekday)) != 0;
+    }
+
+    boolean hasEvent(int day) {
+        return SlotBitmap.get(hasEvent, day);
+    }
+
+    /**
+     * True when the greedy pass could ever put the task on this day: its target weekday,
+     * or one of the fallback days (the first three, and non-work days without events).
+     * A task pinned to a date only ever goes there.
+     */
+    boolean isAllowed(Task task, int day) {
+        if (task.getDate() != null) {
+            return dayIndexOf(task.getDate()) == day;
+        }
+        return task.getTargetDay() == null || weekday[day] == task.getTargetDay()
+                || day < 3 || (!isWorkday(day) && !hasEvent(day));
+    }
+
+    /** True when the day is one the greedy pass tries before any fallback: its date or weekday. */
+    boolean isOwnDay(Task task, int day) {
+        if (task.getDate() != null) {
+            return dayIndexOf(task.getDate()) == day;
+        }
+        return task.getTargetDay() == null || weekday[day] == task.getTargetDay();
+    }
+
+    int firstFreeSlot(int day) {
+        return firstFreeSlot[day];
+    }
+
+    /** Copy with its own free-slot cursors, recaptured from {@code timetable}. */
+    CalendarMetadata copyFor(Timetable timetable) {
+        CalendarMetadata copy = new CalendarMetadata(days, grid);
+        copy.workdayBits = workdayBits;
+        copy.startEpochDay = startEpochDay;
+        System.arraycopy(weekday, 0, copy.weekday, 0, days);
+        System.arraycopy(workday, 0, copy.workday, 0, workday.length);
+        System.arraycopy(hasEvent, 0, copy.hasEvent, 0, hasEvent.length);
+        copy.captureFreeSlots(timetable);
+        return copy;
+    }
+
+    void markEventDay(int day) {
+        SlotBitmap.set(hasEvent, day);
+    }
+
+    /** Re-checks one day for events after its slots were rewritten. */
+    void captureEvents(Timetable timetable, int day) {
+        SlotBitmap.clear(hasEvent, day);
+        for (int slot = 0; slot < timetable.getSlotsPerDay(); slot++) {
+            if (timetable.getActivity(day, slot) instanceof Event) {
+                SlotBitmap.set(hasEvent, day);
+                return;
+            }
+        }
+    }
+
+    /** Records each day's first free slot once the fixed layers are in place. */
+    void captureFreeSlots(Timetable timetable) {
+        for (int day = 0; day < days; day++) {
+            firstFreeSlot[day] = timetable.nextFreeSlot(day, 0);
+        }
+    }
+
+    /** Recomputes a day's first free slot after slots on it were cleared. */
+    void resetFreeSlot(Timetable timetable, int day) {
+        firstFreeSlot[day] = timetable.nextFreeSlot(day, 0);
+    }
+
+    /**
+     * Keeps the first-free cursor valid after a placement at {@code startSlot}. Slots only
+     * fill up during generation, so the cursor never has to move backwards.
+     */
+    void slotsTaken(Timetable timetable, int day, int startSlot) {
+        if (startSlot == firstFreeSlot[day]) {
+            firstFreeSlot[day] = timetable.nextFreeSlot(day, startSlot);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A {@link Timetable} that several threads can place into at once. A run of slots is
+ * claimed by compare-and-set on the day's occupancy words, so two threads can never
+ * both own a slot; a thread that loses the race gets {@code false} back and can retry
+ * somewhere else. {@link #release} rolls a claim back.
+ *
+ * Only the claim/release methods are safe to call concurrently. The inherited write
+ * methods are meant for single-threaded setup (events, sleep, work) before workers
+ * start, and readers should look at slot contents after the workers are joined.
+ */
+public class ConcurrentTimetable extends Timetable {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle IDS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    public ConcurrentTimetable(int days) {
+        this(days, new ActivityRegistry());
+    }
+
+    public ConcurrentTimetable(int days, ActivityRegistry registry) {
+        super(days, registry);
+    }
+
+    public ConcurrentTimetable(int days, ActivityRegistry registry, SlotGrid grid) {
+        super(days, registry, grid);
+    }
+
+    /**
+     * Atomically claims slots [startSlot, startSlot + activity duration) of the day for
+     * {@code activity}. Returns false, leaving the timetable untouched, if any of those
+     * slots is already taken or the run does not fit in the day.
+     */
+    public boolean tryClaim(int day, int startSlot, Activity activity) {
+        int length = activity.getDurationInSlots();
+        if (length <= 0 || startSlot < 0 || startSlot + length > getSlotsPerDay()) {
+            return false;
+        }
+        // Intern first so a full registry fails before any bit is taken
+        int id = getRegistry().intern(activity);
+        long[] words = occupancyRow(day);
+        int end = startSlot + length;
+        int first = startSlot >>> 6;
+        int last = (end - 1) >>> 6;
+        for (int w = first; w <= last; w++) {
+            long mask = wordMask(w, startSlot, end);
+            while (true) {
+                long current = (long) WORDS.getVolatile(words, w);
+                if ((current & mask) != 0) {
+                    // Lost the race on this word: give back the words already taken
+                    for (int undo = first; undo < w; undo++) {
+                        clearBits(words, undo, wordMask(undo, startSlot, end));
+                    }
+                    return false;
+                }
+                if (WORDS.compareAndSet(words, w, current, current | mask)) {
+                    break;
+                }
+            }
+        }
+        int[] ids = slotRow(day);
+        for (int s = startSlot; s < end; s++) {
+            IDS.setRelease(ids, s, id);
+        }
+        return true;
+    }
+
+    /**
+     * Claims the first free run for {@code activity} inside the inclusive window
+     * [windowStart, windowEnd], retrying on a fresh snapshot whenever another thread
+     * takes the run first. Returns the start slot, or -1 once the window has no run left.
+     */
+    public int claimFirstFit(int day, int windowStart, int windowEnd, Activity activity) {
+        int length = activity.getDurationInSlots();
+        while (true) {
+            int start = SlotBitmap.findClearRun(snapshot(day), windowStart, windowEnd + 1, length);
+            if (start < 0) {
+                return -1;
+            }
+            if (tryClaim(day, start, activity)) {
+                return start;
+            }
+        }
+    }
+
+    /** Rolls back a claim made with {@link #tryClaim}: clears the slot ids, then frees the bits. */
+    public void release(int day, int startSlot, int length) {
+        int end = startSlot + length;
+        int[] ids = slotRow(day);
+        for (int s = startSlot; s < end; s++) {
+            IDS.setRelease(ids, s, ActivityRegistry.FREE);
+        }
+        long[] words = occupancyRow(day);
+        for (int w = startSlot >>> 6; w <= (end - 1) >>> 6; w++) {
+            clearBits(words, w, wordMask(w, startSlot, end));
+        }
+    }
+
+    @Override
+    public boolean isFree(int day, int slot) {
+        long word = (long) WORDS.getVolatile(occupancyRow(day), slot >>> 6);
+        return (word & (1L << slot)) == 0;
+    }
+
+    @Override
+    public int largestFreeRun(int day) {
+        return SlotBitmap.largestClearRun(snapshot(day), getSlotsPerDay());
+    }
+
+    /**
+     * Linear scan instead of the shared capacity tree, which cannot take concurrent
+     * updates. The answer is a hint: another thread may take the room before the caller does.
+     */
+    @Override
+    public int firstDayWithRoom(int fromDay, int length) {
+        for (int day = Math.max(fromDay, 0); day < getDays(); day++) {
+            if (largestFreeRun(day) >= length) {
+                return day;
+            }
+        }
+        return -1;
+    }
+
+    // Copy of a day's occupancy words to search in; may be stale, tryClaim re-checks every bit
+    private long[] snapshot(int day) {
+        long[] words = occupancyRow(day);
+        long[] copy = new long[words.length];
+        for (int w = 0; w < words.length; w++) {
+            copy[w] = (long) WORDS.getVolatile(words, w);
+        }
+        return copy;
+    }
+
+    private static long wordMask(int w, int from, int to) {
+        int lo = Math.max(from, w << 6) - (w << 6);
+        int hi = Math.min(to, (w + 1) << 6) - (w << 6);
+        long upper = hi == 64 ? -1L : (1L << hi) - 1;
+        return upper & (-1L << lo);
+    }
+
+    private static void clearBits(long[] words, int w, long mask) {
+        while (true) {
+            long current = (long) WORDS.getVolatile(words, w);
+            if (WORDS.compareAndSet(words, w, current, current & ~mask)) {
+                return;
+            }
+        }
+    }
+}
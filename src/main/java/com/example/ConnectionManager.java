@@ -0,0 +1,254 @@
+package com.example;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Long-lived SQLite connections for one database file, shared by every
+ * {@link ActivityRepository} on it: a single writer, used by one thread at a time, and up
+ * to {@link #READERS} read-only connections that WAL journaling lets run alongside it.
+ * Each connection keeps its prepared statements, so a query is only compiled the first
+ * time it runs on that connection.
+ *
+ * Work is handed in as a callback that gets a {@link Session}; statements from
+ * {@link Session#prepare} belong to the session and must not be closed by the caller
+ * (their result sets still should be).
+ */
+final class ConnectionManager {
+    static final int READERS = 3;
+
+    // Applied to every connection; journal_mode sticks to the file, the rest are per connection
+    private static final String[] PRAGMAS = {
+            "PRAGMA journal_mode=WAL",
+            "PRAGMA synchronous=NORMAL",      // safe under WAL, only the last commits can be lost on power failure
+            "PRAGMA busy_timeout=5000",
+            "PRAGMA cache_size=-16384",       // 16 MiB of page cache
+            "PRAGMA mmap_size=268435456",     // map up to 256 MiB of the file
+            "PRAGMA temp_store=MEMORY"
+    };
+
+    private static final Map<String, ConnectionManager> BY_URL = new ConcurrentHashMap<>();
+
+    private final String url;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private Session writer;
+    private final BlockingQueue<Session> idleReaders = new ArrayBlockingQueue<>(READERS);
+    private final List<Session> allReaders = new ArrayList<>();
+    // The reader the current thread is inside read() with, if any
+    private final ThreadLocal<Session> heldReader = new ThreadLocal<>();
+
+    private ConnectionManager(String url) {
+        this.url = url;
+    }
+
+    /** The manager for a database, created on first use and closed when the JVM exits. */
+    static ConnectionManager forUrl(String url) {
+        return BY_URL.computeIfAbsent(url, u -> {
+            ConnectionManager manager = new ConnectionManager(u);
+            Runtime.getRuntime().addShutdownHook(new Thread(manager::close, "sqlite-close"));
+            return manager;
+        });
+    }
+
+    @FunctionalInterface
+    interface Work<T> {
+        T run(Session session) throws SQLException;
+    }
+
+    /** Runs {@code work} on the writer connection, holding it exclusively until it returns. */
+    <T> T write(Work<T> work) throws SQLException {
+        writeLock.lock();
+        try {
+            if (writer == null) {
+                writer = open(false);
+            }
+            try {
+                return work.run(writer);
+            } catch (SQLException | RuntimeException e) {
+                writer.discardPending();
+                throw e;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code work} on the writer inside one transaction: committed when it returns,
+     * rolled back when it throws. Transactions do not nest: starting one while the writer
+     * is already in a transaction throws {@link IllegalStateException} (and so rolls the
+     * outer one back), rather than committing the outer work early.
+     */
+    <T> T transaction(Work<T> work) throws SQLException {
+        return write(session -> {
+            Connection connection = session.connection();
+            if (!connection.getAutoCommit()) {
+                throw new IllegalStateException("Nested transaction on " + url);
+            }
+            connection.setAutoCommit(false);
+            T result = work.run(session);
+            connection.commit();
+            connection.setAutoCommit(true);
+            return result;
+        });
+    }
+
+    /**
+     * Runs {@code work} on a reader, waiting for one to come free if all are busy. Reads do
+     * not nest: a thread that already holds a reader gets an {@link IllegalStateException}
+     * instead of waiting, since with every reader held that wait would never end. Do
+     * everything with the session already in hand.
+     */
+    <T> T read(Work<T> work) throws SQLException {
+        if (heldReader.get() != null) {
+            throw new IllegalStateException("Nested read on " + url);
+        }
+        Session reader = takeReader();
+        heldReader.set(reader);
+        try {
+            return work.run(reader);
+        } finally {
+            heldReader.remove();
+            synchronized (allReaders) {
+                // Unless close() ran meanwhile and the reader is gone
+                if (allReaders.contains(reader)) {
+                    idleReaders.add(reader);
+                }
+            }
+        }
+    }
+
+    private Session takeReader() throws SQLException {
+        Session reader = idleReaders.poll();
+        if (reader != null) {
+            return reader;
+        }
+        synchronized (allReaders) {
+            if (allReaders.size() < READERS) {
+                reader = open(true);
+                allReaders.add(reader);
+                return reader;
+            }
+        }
+        try {
+            return idleReaders.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+    }
+
+    private Session open(boolean readOnly) throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        try (Statement stmt = connection.createStatement()) {
+            for (String pragma : PRAGMAS) {
+                stmt.execute(pragma);
+            }
+            if (readOnly) {
+                stmt.execute("PRAGMA query_only=ON");
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return new Session(connection);
+    }
+
+    /** Closes every connection; later calls open new ones. */
+    void close() {
+        writeLock.lock();
+        try {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        synchronized (allReaders) {
+            for (Session reader : allReaders) {
+                reader.close();
+            }
+            allReaders.clear();
+            idleReaders.clear();
+        }
+    }
+
+    /** One connection and its cached statements. */
+    static final class Session {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+        private Session(Connection connection) {
+            this.connection = connection;
+        }
+
+        Connection connection() {
+            return connection;
+        }
+
+        /** The cached statement for {@code sql}, compiled on first use. Do not close it. */
+        PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            }
+            return statement;
+        }
+
+        /** Same as {@link #prepare}, for an INSERT whose generated keys are read back. */
+        PreparedStatement prepareReturningKeys(String sql) throws SQLException {
+            // Cached apart from the plain statement for the same text
+            String key = "keys:" + sql;
+            PreparedStatement statement = statements.get(key);
+            if (statement == null) {
+                statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                statements.put(key, statement);
+            }
+            return statement;
+        }
+
+        // After a failure: drop half-built batches and roll back an open transaction
+        private void discardPending() {
+            for (PreparedStatement statement : statements.values()) {
+                try {
+                    statement.clearBatch();
+                } catch (SQLException ignored) {
+                    // Nothing left to discard
+                }
+            }
+            try {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+
+        private void close() {
+            try {
+                for (PreparedStatement statement : statements.values()) {
+                    statement.close();
+                }
+                statements.clear();
+                connection.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Greedy in input order like {@link GreedyPlacement}, but each task goes to its cheapest
+ * spot by {@link TaskCosts} instead of the first one that fits: across every allowed day
+ * with room, the start inside each free gap with the lowest slot cost. Earliest wins ties,
+ * and the scan stops at the first zero-cost spot, so tasks without preferences still
+ * land where the plain greedy pass would put them in the whole-day window.
+ */
+public class CostAwarePlacement implements PlacementStrategy {
+    @Override
+    public List<Task> placeTasks(PlacementContext context, List<Task> tasks) {
+        Timetable timetable = context.getTimetable();
+        int slotsPerDay = timetable.getSlotsPerDay();
+        List<Task> unscheduledTasks = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            context.progress(i, tasks.size());
+            Task task = tasks.get(i);
+            int length = task.getDurationInSlots();
+            if (length <= 0 || length > slotsPerDay) {
+                unscheduledTasks.add(task);
+                continue;
+            }
+            TaskCosts costs = TaskCosts.of(task, context.calendar());
+            int bestDay = -1, bestStart = -1;
+            long bestCost = Long.MAX_VALUE;
+            for (int day = timetable.firstDayWithRoom(0, length); day >= 0 && bestCost > 0;
+                    day = timetable.firstDayWithRoom(day + 1, length)) {
+                long dayCost = costs.dayCost(day);
+                // The day part alone is a lower bound for anything on this day
+                if (dayCost >= bestCost || !context.isAllowed(task, day)) continue;
+                long[] words = timetable.occupancy(day);
+                int gapStart = SlotBitmap.nextClearBit(words, 0, slotsPerDay);
+                while (gapStart < slotsPerDay && bestCost > dayCost) {
+                    int gapEnd = SlotBitmap.nextSetBit(words, gapStart, slotsPerDay);
+                    int start = costs.slots().cheapestStart(gapStart, gapEnd, length);
+                    if (start >= 0) {
+                        long cost = dayCost + costs.slots().cost(start, start + length);
+                        if (cost < bestCost) {
+                            bestCost = cost;
+                            bestDay = day;
+                            bestStart = start;
+                        }
+                    }
+                    gapStart = SlotBitmap.nextClearBit(words, gapEnd, slotsPerDay);
+                }
+            }
+            if (bestDay < 0) {
+                unscheduledTasks.add(task);
+            } else {
+                context.place(task, bestDay, bestStart);
+            }
+        }
+        return unscheduledTasks;
+    }
+}
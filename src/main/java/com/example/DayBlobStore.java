@@ -0,0 +1,265 @@
+package com.example;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ActivityRepository.Storage#DAY_BLOBS}: one row per day, keyed by date, holding
+ * every slot's activity id in a blob. Loading a day is one primary-key lookup and a
+ * decode into an int array.
+ *
+ * Blob layout: a format byte, the slot count as a varint, then either one varint id per
+ * slot ({@link #PLAIN}) or (id, length) varint pairs per run ({@link #RUN_LENGTH}),
+ * whichever is shorter. Days with nothing in them are not stored.
+ */
+final class DayBlobStore implements TimetableStore {
+    static final byte PLAIN = 0;
+    static final byte RUN_LENGTH = 1;
+
+    // Batched day rows per executeBatch
+    private static final int DAYS_PER_BATCH = 64;
+
+    private static final String SELECT_DAY = "SELECT slot_minutes, slots FROM timetable_days WHERE date = ?";
+    private static final String SELECT_RANGE = "SELECT date, slot_minutes, slots FROM timetable_days WHERE date >= ? AND date <= ? ORDER BY date";
+    private static final String SELECT_ACTIVITY = "SELECT name, type FROM activities WHERE id = ?";
+    private static final String UPSERT_DAY = "INSERT OR REPLACE INTO timetable_days (date, slot_minutes, slots) VALUES (?, ?, ?)";
+    private static final String DELETE_RANGE = "DELETE FROM timetable_days WHERE date >= ? AND date <= ?";
+    private static final String DELETE_DAY = "DELETE FROM timetable_days WHERE date = ?";
+
+    // Activity rows are never changed once added, so their name and type stay valid
+    private final Map<Integer, String[]> activities = new ConcurrentHashMap<>();
+
+    @Override
+    public void createTables(ConnectionManager.Session session) throws SQLException {
+        try (Statement stmt = session.connection().createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS timetable_days (" +
+                    "date TEXT PRIMARY KEY," + // ISO yyyy-MM-dd
+                    "slot_minutes INTEGER NOT NULL," + // SlotGrid the slots are counted on
+                    "slots BLOB NOT NULL" +
+                    ") WITHOUT ROWID");
+        }
+    }
+
+    @Override
+    public Map<String, String> hotQueries() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("day", SELECT_DAY);
+        queries.put("range", SELECT_RANGE);
+        queries.put("activity by id", SELECT_ACTIVITY);
+        queries.put("delete range", DELETE_RANGE);
+        queries.put("delete day", DELETE_DAY);
+        return queries;
+    }
+
+    @Override
+    public Writer writer(ConnectionManager.Session session) {
+        return new Writer() {
+            private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            private int batched;
+            private long written;
+
+            @Override
+            public void deleteDay(String date) throws SQLException {
+                PreparedStatement del = session.prepare(DELETE_DAY);
+                del.setString(1, date);
+                del.executeUpdate();
+            }
+
+            @Override
+            public void addDay(String date, SlotGrid grid, int[] activityIds) throws SQLException {
+                byte[] blob = encode(activityIds, grid.getSlotsPerDay(), buffer);
+                if (blob == null) return;
+                PreparedStatement pstmt = session.prepare(UPSERT_DAY);
+                pstmt.setString(1, date);
+                pstmt.setInt(2, grid.getMinutesPerSlot());
+                pstmt.setBytes(3, blob);
+                pstmt.addBatch();
+                if (++batched == DAYS_PER_BATCH) {
+                    finish();
+                }
+            }
+
+            @Override
+            public long finish() throws SQLException {
+                if (batched > 0) {
+                    session.prepare(UPSERT_DAY).executeBatch();
+                    written += batched;
+                    batched = 0;
+                }
+                return written;
+            }
+        };
+    }
+
+    @Override
+    public void deleteRange(ConnectionManager.Session session, String startDate, String endDate) throws SQLException {
+        PreparedStatement del = session.prepare(DELETE_RANGE);
+        del.setString(1, startDate);
+        del.setString(2, endDate);
+        del.executeUpdate();
+    }
+
+    @Override
+    public List<String> dates(ConnectionManager.Session session) throws SQLException {
+        List<String> dates = new ArrayList<>();
+        try (ResultSet rs = session.prepare("SELECT date FROM timetable_days ORDER BY date").executeQuery()) {
+            while (rs.next()) {
+                dates.add(rs.getString("date"));
+            }
+        }
+        return dates;
+    }
+
+    @Override
+    public List<ActivityRepository.TimetableEntry> day(ConnectionManager.Session session, String date) throws SQLException {
+        List<ActivityRepository.TimetableEntry> entries = new ArrayList<>();
+        PreparedStatement pstmt = session.prepare(SELECT_DAY);
+        pstmt.setString(1, date);
+        SlotGrid grid;
+        int[] ids;
+        try (ResultSet rs = pstmt.executeQuery()) {
+            if (!rs.next()) {
+                return entries;
+            }
+            grid = SlotGrid.ofMinutes(rs.getInt(1));
+            ids = decode(rs.getBytes(2), new int[grid.getSlotsPerDay()]);
+        }
+        int slot = 0;
+        while (slot < ids.length) {
+            int id = ids[slot];
+            int end = slot + 1;
+            while (end < ids.length && ids[end] == id) {
+                end++;
+            }
+            String[] activity = id == 0 ? null : activity(session, id);
+            // Ids with no activity row are skipped, as the span store's join does
+            if (activity != null) {
+                entries.add(new ActivityRepository.TimetableEntry(date, slot, end, activity[0], activity[1], grid));
+            }
+            slot = end;
+        }
+        return entries;
+    }
+
+    // Name and type of an activity row, or null if there is none
+    private String[] activity(ConnectionManager.Session session, int id) throws SQLException {
+        String[] activity = activities.get(id);
+        if (activity == null) {
+            PreparedStatement pstmt = session.prepare(SELECT_ACTIVITY);
+            pstmt.setInt(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                activity = new String[]{rs.getString(1), rs.getString(2)};
+            }
+            activities.put(id, activity);
+        }
+        return activity;
+    }
+
+    @Override
+    public void forEachDay(ConnectionManager.Session session, String startDate, String endDate,
+                           ActivityRepository.DayVisitor visitor) throws SQLException {
+        PreparedStatement pstmt = session.prepare(SELECT_RANGE);
+        pstmt.setString(1, startDate);
+        pstmt.setString(2, endDate);
+        int[] ids = new int[0];
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                SlotGrid grid = SlotGrid.ofMinutes(rs.getInt(2));
+                if (ids.length != grid.getSlotsPerDay()) {
+                    ids = new int[grid.getSlotsPerDay()];
+                }
+                visitor.visit(rs.getString(1), grid, decode(rs.getBytes(3), ids));
+            }
+        }
+    }
+
+    /** The blob for a day, or null when every slot is free. */
+    static byte[] encode(int[] ids, int slots, ByteArrayOutputStream buffer) {
+        int runs = 0;
+        boolean empty = true;
+        for (int slot = 0; slot < slots; slot++) {
+            if (slot == 0 || ids[slot] != ids[slot - 1]) runs++;
+            if (ids[slot] != 0) empty = false;
+        }
+        if (empty) {
+            return null;
+        }
+        buffer.reset();
+        // A run costs an id and a length, a slot only an id
+        boolean runLength = 2 * runs < slots;
+        buffer.write(runLength ? RUN_LENGTH : PLAIN);
+        writeVarint(buffer, slots);
+        if (runLength) {
+            int slot = 0;
+            while (slot < slots) {
+                int end = slot + 1;
+                while (end < slots && ids[end] == ids[slot]) {
+                    end++;
+                }
+                writeVarint(buffer, ids[slot]);
+                writeVarint(buffer, end - slot);
+                slot = end;
+            }
+        } else {
+            for (int slot = 0; slot < slots; slot++) {
+                writeVarint(buffer, ids[slot]);
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    /** Decodes a blob into {@code ids}, which must hold the day's slots, and returns it. */
+    static int[] decode(byte[] blob, int[] ids) {
+        int[] pos = {1};
+        int slots = readVarint(blob, pos);
+        if (slots != ids.length) {
+            throw new IllegalArgumentException("Blob holds " + slots + " slots, expected " + ids.length);
+        }
+        if (blob[0] == RUN_LENGTH) {
+            int slot = 0;
+            while (slot < slots) {
+                int id = readVarint(blob, pos);
+                int end = slot + readVarint(blob, pos);
+                java.util.Arrays.fill(ids, slot, end, id);
+                slot = end;
+            }
+        } else {
+            for (int slot = 0; slot < slots; slot++) {
+                ids[slot] = readVarint(blob, pos);
+            }
+        }
+        return ids;
+    }
+
+    // Unsigned LEB128: seven bits per byte, high bit set on all but the last
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] in, int[] pos) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example;
+
+/**
+ * Segment tree over the days of a timetable holding each day's largest free block.
+ * Answers "first day at or after d that can hold n consecutive slots" in O(log days),
+ * so placement can skip full days instead of probing each one.
+ */
+final class DayCapacityTree {
+    private final int size; // number of leaves, a power of two >= days
+    private final int[] max;
+
+    DayCapacityTree(int days) {
+        int n = 1;
+        while (n < Math.max(1, days)) {
+            n <<= 1;
+        }
+        this.size = n;
+        this.max = new int[2 * n];
+    }
+
+    void set(int day, int capacity) {
+        int i = day + size;
+        max[i] = capacity;
+        for (i >>= 1; i >= 1; i >>= 1) {
+            int m = Math.max(max[2 * i], max[2 * i + 1]);
+            if (max[i] == m) {
+                break; // ancestors already reflect this value
+            }
+            max[i] = m;
+        }
+    }
+
+    int get(int day) {
+        return max[day + size];
+    }
+
+    /** Largest free block anywhere in the range. */
+    int max() {
+        return max[1];
+    }
+
+    /** First day >= fromDay whose capacity is at least {@code needed}, or -1. */
+    int firstAtLeast(int fromDay, int needed) {
+        if (fromDay >= size || max[1] < needed) {
+            return -1;
+        }
+        return descend(1, 0, size, Math.max(0, fromDay), needed);
+    }
+
+    private int descend(int node, int lo, int hi, int fromDay, int needed) {
+        if (hi <= fromDay || max[node] < needed) {
+            return -1;
+        }
+        if (hi - lo == 1) {
+            return lo;
+        }
+        int mid = (lo + hi) >>> 1;
+        int left = descend(2 * node, lo, mid, fromDay, needed);
+        if (left != -1) {
+            return left;
+        }
+        return descend(2 * node + 1, mid, hi, fromDay, needed);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example;
+
+import java.time.LocalDate;
+
+/**
+ * Two events that claim the same slots. Events are stamped in input order, so the later
+ * one keeps the shared slots; the earlier one is still in the timetable wherever it does
+ * not overlap. The overlap may run past midnight into the next day.
+ */
+public final class EventConflict {
+    private final Event earlier;
+    private final Event later;
+    private final LocalDate date;
+    private final int startSlot;
+    private final int durationInSlots;
+
+    EventConflict(Event earlier, Event later, LocalDate date, int startSlot, int durationInSlots) {
+        this.earlier = earlier;
+        this.later = later;
+        this.date = date;
+        this.startSlot = startSlot;
+        this.durationInSlots = durationInSlots;
+    }
+
+    /** The event that lost the shared slots. */
+    public Event getEarlier() {
+        return earlier;
+    }
+
+    /** The event that holds the shared slots. */
+    public Event getLater() {
+        return later;
+    }
+
+    /** Date the overlap starts on. */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public int getStartSlot() {
+        return startSlot;
+    }
+
+    public int getDurationInSlots() {
+        return durationInSlots;
+    }
+
+    @Override
+    public String toString() {
+        return later.getName() + " overlaps " + earlier.getName() + " on " + date + " from slot " + startSlot
+                + " for " + durationInSlots + " slots";
+    }
+}
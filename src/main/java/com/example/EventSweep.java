@@ -0,0 +1,143 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Bulk form of the event phase. Each event is turned once into a run of slots on the
+ * horizon laid end to end (day * slotsPerDay + slot), following the same walk and wraps
+ * as {@link Timetable#placeAt}; the runs are then written with one range fill per day
+ * they cover, and a sweep over them sorted by start finds every pair that overlaps in
+ * O(n log n + conflicts) instead of comparing slot by slot.
+ *
+ * Writing in input order keeps the result of forced placement: the later event wins
+ * shared slots.
+ */
+final class EventSweep {
+    private final List<Event> events;
+    private final LocalDate startDate;
+    private final int slotsPerDay;
+    // Runs as [start, end) on the horizon line, up to two per event when it wraps past the
+    // last day; owner is the event's input index
+    private long[] runStart = new long[16];
+    private long[] runEnd = new long[16];
+    private int[] runOwner = new int[16];
+    private int runs;
+
+    EventSweep(List<Event> events, LocalDate startDate, LocalDate endDate, int days, int slotsPerDay) {
+        this.events = events;
+        this.startDate = startDate;
+        this.slotsPerDay = slotsPerDay;
+        long horizon = (long) days * slotsPerDay;
+        for (int i = 0; i < events.size(); i++) {
+            Event event = events.get(i);
+            int day = SchedulerService.dayIndexOf(event, startDate, endDate);
+            int length = event.getDurationInSlots();
+            if (day < 0 || length <= 0) continue;
+            int slot = event.getStartSlot();
+            if (slot < 0 || slot >= slotsPerDay) {
+                // placeAt moves a start outside the day to the start of the next one
+                day = (day + 1) % days;
+                slot = 0;
+            }
+            long start = (long) day * slotsPerDay + slot;
+            // Longer than the horizon, the walk only overwrites itself
+            long end = start + Math.min(length, horizon);
+            if (end <= horizon) {
+                addRun(start, end, i);
+            } else {
+                addRun(start, horizon, i);
+                addRun(0, end - horizon, i);
+            }
+        }
+    }
+
+    private void addRun(long start, long end, int owner) {
+        if (runs == runStart.length) {
+            runStart = Arrays.copyOf(runStart, runs * 2);
+            runEnd = Arrays.copyOf(runEnd, runs * 2);
+            runOwner = Arrays.copyOf(runOwner, runs * 2);
+        }
+        runStart[runs] = start;
+        runEnd[runs] = end;
+        runOwner[runs] = owner;
+        runs++;
+    }
+
+    /**
+     * Writes the events into days [fromDay, toDay) in input order, reporting progress per
+     * event when a control is given. Callers owning disjoint day ranges may fill in parallel.
+     */
+    void fill(Timetable timetable, int fromDay, int toDay, GenerationControl control) {
+        int[] ids = new int[events.size()];
+        for (int r = 0; r < runs; r++) {
+            int owner = runOwner[r];
+            if (control != null) {
+                control.progress(GenerationControl.Phase.EVENTS, owner, events.size());
+            }
+            long from = Math.max(runStart[r], (long) fromDay * slotsPerDay);
+            long to = Math.min(runEnd[r], (long) toDay * slotsPerDay);
+            if (from >= to) continue;
+            if (ids[owner] == 0) {
+                ids[owner] = timetable.getRegistry().intern(events.get(owner));
+            }
+            while (from < to) {
+                int day = (int) (from / slotsPerDay);
+                int slot = (int) (from % slotsPerDay);
+                int length = (int) Math.min(to - from, slotsPerDay - slot);
+                timetable.fillId(day, slot, length, ids[owner]);
+                from += length;
+            }
+        }
+    }
+
+    /**
+     * Records the days that hold an event after {@link #fill}, without scanning every slot.
+     */
+    void markEventDays(CalendarMetadata calendar) {
+        for (int r = 0; r < runs; r++) {
+            for (long day = runStart[r] / slotsPerDay; day * slotsPerDay < runEnd[r]; day++) {
+                calendar.markEventDay((int) day);
+            }
+        }
+    }
+
+    /** Every overlap between two events, ordered by where it starts. */
+    List<EventConflict> conflicts() {
+        // Sort run indices by start; packing the index under the start keeps it a primitive sort
+        long[] order = new long[runs];
+        for (int r = 0; r < runs; r++) {
+            order[r] = runStart[r] * runs + r;
+        }
+        Arrays.sort(order);
+        List<EventConflict> conflicts = new ArrayList<>();
+        // Runs that started earlier and have not ended yet, soonest end first
+        PriorityQueue<Integer> active = new PriorityQueue<>((a, b) -> Long.compare(runEnd[a], runEnd[b]));
+        for (long packed : order) {
+            int r = (int) (packed % runs);
+            while (!active.isEmpty() && runEnd[active.peek()] <= runStart[r]) {
+                active.poll();
+            }
+            // Everything still active started no later and ends after this run starts
+            for (int other : active) {
+                if (runOwner[other] != runOwner[r]) {
+                    conflicts.add(conflict(other, r));
+                }
+            }
+            active.add(r);
+        }
+        return conflicts;
+    }
+
+    private EventConflict conflict(int a, int b) {
+        int earlier = Math.min(runOwner[a], runOwner[b]);
+        int later = Math.max(runOwner[a], runOwner[b]);
+        long start = runStart[b];
+        long end = Math.min(runEnd[a], runEnd[b]);
+        return new EventConflict(events.get(earlier), events.get(later),
+                startDate.plusDays(start / slotsPerDay), (int) (start % slotsPerDay), (int) (end - start));
+    }
+}
@@ -0,0 +1,193 @@
+package com.example;
+
+/**
+ * Places activities into the free gaps of a {@link Timetable}, keeping each day's
+ * gaps in segregated lists bucketed by length (like a memory allocator's free lists).
+ * A per-day bitmap of non-empty buckets turns "smallest gap that can hold N slots"
+ * into a couple of word operations.
+ *
+ * Days are indexed lazily from the timetable's occupancy bitmap the first time they
+ * are asked for. All writes made through {@link #allocate} keep the lists in step;
+ * anything else that writes to the timetable afterwards must call {@link #refresh}.
+ */
+public class GapAllocator {
+    public enum Policy {
+        /** Earliest gap that fits, same placement as a linear scan. */
+        FIRST_FIT,
+        /** Smallest gap that fits, earliest start on ties. Leaves fewer slivers behind. */
+        BEST_FIT
+    }
+
+    private final Timetable timetable;
+    private final Policy policy;
+    private final DayGaps[] dayGaps;
+
+    public GapAllocator(Timetable timetable, Policy policy) {
+        this.timetable = timetable;
+        this.policy = policy;
+        this.dayGaps = new DayGaps[timetable.getDays()];
+    }
+
+    public Timetable getTimetable() {
+        return timetable;
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Finds a gap for {@code activity} inside the inclusive window [windowStart, windowEnd]
+     * of the day and writes it into the timetable. Returns the start slot, or -1 if
+     * nothing fits.
+     */
+    public int allocate(int day, Activity activity, int windowStart, int windowEnd) {
+        int length = activity.getDurationInSlots();
+        int start = findGap(day, length, windowStart, windowEnd);
+        if (start < 0) {
+            return -1;
+        }
+        DayGaps gaps = dayGaps[day];
+        if (gaps != null) {
+            gaps.take(start, length);
+        }
+        timetable.fill(day, start, length, activity);
+        return start;
+    }
+
+    /** Same lookup as {@link #allocate} without writing anything. */
+    public int findGap(int day, int length, int windowStart, int windowEnd) {
+        if (length <= 0 || length > timetable.getSlotsPerDay()) {
+            return -1;
+        }
+        if (policy == Policy.FIRST_FIT) {
+            return timetable.findFreeRun(day, windowStart, windowEnd, length);
+        }
+        return gaps(day).bestFit(length, windowStart, windowEnd + 1);
+    }
+
+    /** Drops the cached gap lists for a day that was written to outside this allocator. */
+    public void refresh(int day) {
+        dayGaps[day] = null;
+    }
+
+    private DayGaps gaps(int day) {
+        DayGaps gaps = dayGaps[day];
+        if (gaps == null) {
+            gaps = new DayGaps(timetable.occupancy(day), timetable.getSlotsPerDay());
+            dayGaps[day] = gaps;
+        }
+        return gaps;
+    }
+
+    /**
+     * Free gaps of one day. Gaps live in small parallel arrays; each length bucket is a
+     * doubly linked list threaded through them, and {@code bucketMask} has bit L set
+     * while bucket L is non-empty.
+     */
+    private static final class DayGaps {
+        private final int slots;
+        private final int[] start;
+        private final int[] length;
+        private final int[] next;
+        private final int[] prev;
+        private final int[] head;
+        private final int[] nodeAtStart;
+        private final long[] bucketMask;
+        private int freeNode = -1;
+
+        DayGaps(long[] occupancy, int slots) {
+            this.slots = slots;
+            // A day can never have more than slots / 2 + 1 separate gaps
+            int maxGaps = slots / 2 + 1;
+            start = new int[maxGaps];
+            length = new int[maxGaps];
+            next = new int[maxGaps];
+            prev = new int[maxGaps];
+            head = new int[slots + 1];
+            nodeAtStart = new int[slots];
+            bucketMask = new long[SlotBitmap.wordsFor(slots + 1)];
+            java.util.Arrays.fill(head, -1);
+            java.util.Arrays.fill(nodeAtStart, -1);
+            for (int i = maxGaps - 1; i >= 0; i--) {
+                next[i] = freeNode;
+                freeNode = i;
+            }
+            int s = SlotBitmap.nextClearBit(occupancy, 0, slots);
+            while (s < slots) {
+                int e = SlotBitmap.nextSetBit(occupancy, s, slots);
+                add(s, e - s);
+                s = SlotBitmap.nextClearBit(occupancy, e, slots);
+            }
+        }
+
+        int bestFit(int needed, int from, int to) {
+            int bucket = SlotBitmap.nextSetBit(bucketMask, needed, slots + 1);
+            while (bucket <= slots) {
+                int best = -1;
+                for (int n = head[bucket]; n != -1; n = next[n]) {
+                    int s = Math.max(start[n], from);
+                    int e = Math.min(start[n] + length[n], to);
+                    if (e - s >= needed && (best == -1 || s < best)) {
+                        best = s;
+                    }
+                }
+                if (best != -1) {
+                    return best;
+                }
+                bucket = SlotBitmap.nextSetBit(bucketMask, bucket + 1, slots + 1);
+            }
+            return -1;
+        }
+
+        // Removes [s, s + len) from the gap containing it, putting back what is left on either side
+        void take(int s, int len) {
+            int gapStart = s;
+            while (nodeAtStart[gapStart] == -1) {
+                gapStart--;
+            }
+            int n = nodeAtStart[gapStart];
+            int gapEnd = start[n] + length[n];
+            remove(n);
+            if (s > gapStart) {
+                add(gapStart, s - gapStart);
+            }
+            if (s + len < gapEnd) {
+                add(s + len, gapEnd - s - len);
+            }
+        }
+
+        private void add(int s, int len) {
+            int n = freeNode;
+            freeNode = next[n];
+            start[n] = s;
+            length[n] = len;
+            prev[n] = -1;
+            next[n] = head[len];
+            if (head[len] != -1) {
+                prev[head[len]] = n;
+            }
+            head[len] = n;
+            nodeAtStart[s] = n;
+            SlotBitmap.set(bucketMask, len);
+        }
+
+        private void remove(int n) {
+            int len = length[n];
+            if (prev[n] != -1) {
+                next[prev[n]] = next[n];
+            } else {
+                head[len] = next[n];
+            }
+            if (next[n] != -1) {
+                prev[next[n]] = prev[n];
+            }
+            if (head[len] == -1) {
+                SlotBitmap.clear(bucketMask, len);
+            }
+            nodeAtStart[start[n]] = -1;
+            next[n] = freeNode;
+            freeNode = n;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache of generated timetables by {@link GenerationKey}, so
+ * generating again with unchanged inputs hands back the earlier result instead of
+ * rerunning the scheduler. Results are shared, not copied: whoever edits a cached result
+ * in place (the incremental edits on {@link SchedulerService}) must {@link #remove} it.
+ *
+ * Thread-safe.
+ */
+public class GenerationCache {
+    private final Map<GenerationKey, ScheduleResult> entries;
+
+    public GenerationCache(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be at least 1, got " + capacity);
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<GenerationKey, ScheduleResult> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** The cached result for the key, or null; a hit makes it the most recently used. */
+    public synchronized ScheduleResult get(GenerationKey key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(GenerationKey key, ScheduleResult result) {
+        entries.put(key, result);
+    }
+
+    public synchronized void remove(GenerationKey key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
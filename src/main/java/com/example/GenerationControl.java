@@ -0,0 +1,102 @@
+package com.example;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Handle on one run of {@link SchedulerService#generateTimetable}: lets another thread
+ * cancel it, puts a deadline on it and reports how far each phase got. Cancellation is
+ * cooperative; the generator checks between events, days and tasks and then throws a
+ * {@link CancellationException}, leaving nothing half-written behind since the
+ * timetable is only returned on success.
+ *
+ * Use a new control per run.
+ */
+public final class GenerationControl {
+    /** Phases in the order a generation runs them. */
+    public enum Phase {
+        EVENTS,
+        // Sleep and work are stamped together, one day at a time, from the weekly template
+        SLEEP_AND_WORK,
+        TASKS,
+        // Tasks that fit none of their own days and went through the fallback search
+        FALLBACK
+    }
+
+    /**
+     * Called on the generating thread. {@code done} counts up to {@code total} within a
+     * phase; {@link Phase#FALLBACK} is reported once, after the task phase, with the number
+     * of tasks that needed it.
+     */
+    public interface ProgressListener {
+        void progress(Phase phase, int done, int total);
+
+        default void phaseFinished(Phase phase, long elapsedMillis) {
+        }
+    }
+
+    // The listener hears every this many steps, plus the last one of each phase
+    private static final int REPORT_EVERY = 64;
+
+    private volatile boolean cancelled;
+    private long deadlineMillis = Long.MAX_VALUE;
+    private ProgressListener progressListener;
+
+    // Only touched by the generating thread
+    private int fallbackTasks;
+    private long fallbackNanos;
+
+    /** Makes the run stop at its next check. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Wall-clock time after which the run gives up as if cancelled; null for none. */
+    public void setDeadline(java.time.Instant deadline) {
+        this.deadlineMillis = deadline == null ? Long.MAX_VALUE : deadline.toEpochMilli();
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    // Throws once the run was cancelled or ran past its deadline
+    void checkpoint() {
+        if (cancelled) {
+            throw new CancellationException("Timetable generation was cancelled");
+        }
+        if (deadlineMillis != Long.MAX_VALUE && System.currentTimeMillis() > deadlineMillis) {
+            throw new CancellationException("Timetable generation ran past its deadline");
+        }
+    }
+
+    // Checks, then reports to the listener if this step is due
+    void progress(Phase phase, int done, int total) {
+        checkpoint();
+        if (progressListener != null && (done % REPORT_EVERY == 0 || done == total)) {
+            progressListener.progress(phase, done, total);
+        }
+    }
+
+    void phaseFinished(Phase phase, long startNanos) {
+        if (progressListener != null) {
+            progressListener.phaseFinished(phase, (System.nanoTime() - startNanos) / 1_000_000);
+        }
+    }
+
+    void fallbackUsed(long startNanos) {
+        fallbackTasks++;
+        fallbackNanos += System.nanoTime() - startNanos;
+    }
+
+    // Reports the fallback searches summed over the task phase
+    void fallbackFinished() {
+        if (progressListener != null) {
+            progressListener.progress(Phase.FALLBACK, fallbackTasks, fallbackTasks);
+            progressListener.phaseFinished(Phase.FALLBACK, fallbackNanos / 1_000_000);
+        }
+    }
+}
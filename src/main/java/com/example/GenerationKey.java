@@ -0,0 +1,119 @@
+package com.example;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Fingerprint of everything a {@link SchedulerService#generateTimetable} call depends on:
+ * the scheduler's grid, gap policy and placement strategy, the work and sleep settings,
+ * every task and event field and the date range. Two calls with equal keys produce equal
+ * timetables, so a key can stand in for a generated result (see {@link GenerationCache}).
+ *
+ * The fingerprint is a SHA-256 over a canonical encoding, not Object hash codes, so it is
+ * the same across runs and can be stored. Placement strategies are identified by class;
+ * a strategy with settings of its own should get a fresh cache when they change.
+ */
+public final class GenerationKey {
+    private final String fingerprint;
+
+    private GenerationKey(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+
+    public static GenerationKey of(SchedulerService scheduler, List<Integer> workdays, int workStartSlot,
+                                   int workDurationSlots, int sleepDurationSlots, List<Task> tasks,
+                                   List<Event> events, LocalDate startDate, LocalDate endDate) {
+        Encoder out = new Encoder();
+        out.field(scheduler.getSlotGrid().getMinutesPerSlot());
+        out.field(scheduler.getPlacementPolicy().name());
+        out.field(scheduler.getPlacementStrategy().getClass().getName());
+        out.field(workdays.size());
+        for (Integer workday : workdays) {
+            out.field(workday);
+        }
+        out.field(workStartSlot);
+        out.field(workDurationSlots);
+        out.field(sleepDurationSlots);
+        out.field(startDate);
+        out.field(endDate);
+        // Order matters: tasks are placed and events stamped in list order
+        out.field(tasks.size());
+        for (Task task : tasks) {
+            out.field(task.getName());
+            out.field(task.getDurationInSlots());
+            out.field(task.getTargetDay());
+            out.field(task.getPreferredTime());
+            out.field(task.getDeadline());
+            out.field(task.getDate());
+        }
+        out.field(events.size());
+        for (Event event : events) {
+            out.field(event.getName());
+            out.field(event.getDurationInSlots());
+            out.field(event.getEventDate());
+            out.field(event.getStartSlot());
+        }
+        return new GenerationKey(out.digest());
+    }
+
+    /** Parses a fingerprint produced by {@link #toString}, e.g. one read back from storage. */
+    public static GenerationKey parse(String fingerprint) {
+        if (fingerprint == null || !fingerprint.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Not a generation fingerprint: " + fingerprint);
+        }
+        return new GenerationKey(fingerprint);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof GenerationKey && ((GenerationKey) o).fingerprint.equals(fingerprint);
+    }
+
+    @Override
+    public int hashCode() {
+        return fingerprint.hashCode();
+    }
+
+    /** The fingerprint as 64 lowercase hex digits. */
+    @Override
+    public String toString() {
+        return fingerprint;
+    }
+
+    // Length-prefixed fields, so "ab","c" and "a","bc" encode differently
+    private static final class Encoder {
+        private final MessageDigest digest;
+
+        Encoder() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                // Every Java platform is required to provide SHA-256
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void field(Object value) {
+            if (value == null) {
+                digest.update((byte) 0);
+                return;
+            }
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            digest.update((byte) 1);
+            digest.update(new byte[]{(byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                    (byte) (bytes.length >>> 8), (byte) bytes.length});
+            digest.update(bytes);
+        }
+
+        String digest() {
+            StringBuilder hex = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        }
+    }
+}
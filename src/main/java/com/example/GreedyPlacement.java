@@ -0,0 +1,24 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The scheduler's default: tasks in input order, each on the first day that fits,
+ * preferred window first, then the fallback days. Fast, but an early long task can
+ * take the room several later tasks needed.
+ */
+public final class GreedyPlacement implements PlacementStrategy {
+    @Override
+    public List<Task> placeTasks(PlacementContext context, List<Task> tasks) {
+        List<Task> unscheduledTasks = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            context.progress(i, tasks.size());
+            Task task = tasks.get(i);
+            if (context.placeGreedy(task) < 0) {
+                unscheduledTasks.add(task);
+            }
+        }
+        return unscheduledTasks;
+    }
+}
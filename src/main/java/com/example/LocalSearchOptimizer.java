@@ -0,0 +1,418 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Improves a schedule from {@link SchedulerService#generateTimetable} by local search.
+ * Each restart copies the input, kicks it with a few random moves (except the very
+ * first restart) and then hill-climbs with two neighbourhoods: moving one task to a free
+ * run on another allowed day or slot, and swapping the places of two tasks. A step is
+ * kept when it does not make the score worse (see {@link #score}).
+ *
+ * Restarts run independently on a fixed pool of worker threads and the best-scoring
+ * timetable wins. The search is anytime: {@link #optimize} returns the best schedule
+ * found when its budget runs out, when {@link #cancel} is called or when the calling
+ * thread is interrupted.
+ */
+public class LocalSearchOptimizer {
+    /**
+     * Called from a worker thread every time a restart beats the best score so far; never
+     * after {@link #optimize} has returned.
+     */
+    public interface ProgressListener {
+        void improved(long score, int unscheduledTasks, long elapsedMillis);
+    }
+
+    private static final int STEPS_PER_STOP_CHECK = 256;
+
+    private final int threads;
+    private long seed = 1;
+    private ProgressListener progressListener;
+    private volatile boolean cancelled;
+
+    public LocalSearchOptimizer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public LocalSearchOptimizer(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Threads must be at least 1, got " + threads);
+        }
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // Restart r draws its moves from new Random(seed + r)
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /** Makes a running {@link #optimize} stop and return the best schedule found so far. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Score of a schedule from {@link SchedulerService}, lower is better: unscheduled
+     * tasks dominate, then missed target weekdays, slots outside the preferred time and
+     * the number of free gaps left per day.
+     */
+    public static long score(ScheduleResult result) {
+        if (result.getContext() == null) {
+            throw new IllegalArgumentException("Scoring needs a result from SchedulerService");
+        }
+        return ScheduleScore.score(result);
+    }
+
+    /**
+     * Searches for at most {@code budget} and returns the best schedule found, as a new
+     * result over its own dense timetable and its own copy of the input's registry, so the
+     * input is left untouched and either can be edited afterwards without the other seeing
+     * it. Returns the input itself when nothing better turned up. Every worker has stopped
+     * by the time it returns.
+     */
+    public ScheduleResult optimize(ScheduleResult result, java.time.Duration budget) {
+        ScheduleContext context = result.getContext();
+        if (context == null) {
+            throw new IllegalArgumentException("Optimizing needs a result from SchedulerService");
+        }
+        cancelled = false;
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + budget.toNanos();
+        // The search interns into a registry of its own, so the input's stays as it was
+        ActivityRegistry registry = result.getTimetable().getRegistry().copy();
+        Solution initial = Solution.capture(result, context.calendar, registry);
+        if (initial.tasks.length == 0) {
+            return result;
+        }
+        Solution[] best = {initial};
+        AtomicInteger restarts = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(pool.submit(() -> {
+                while (!stopped(deadline)) {
+                    int restart = restarts.getAndIncrement();
+                    Random random = new Random(seed + restart);
+                    Solution solution = initial.copy();
+                    if (restart > 0) {
+                        solution.kick(random, 1 + solution.tasks.length / 5);
+                    }
+                    climb(solution, random, deadline);
+                    boolean improved;
+                    synchronized (best) {
+                        improved = solution.score < best[0].score;
+                        if (improved) {
+                            best[0] = solution;
+                        }
+                    }
+                    if (improved && progressListener != null) {
+                        progressListener.improved(solution.score, solution.unscheduled(),
+                                (System.nanoTime() - startedAt) / 1_000_000);
+                    }
+                }
+            }));
+        }
+        try {
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            cancelled = true;
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+            awaitWorkers(pool);
+        }
+
+        Solution winner;
+        synchronized (best) {
+            winner = best[0];
+        }
+        if (winner == initial) {
+            return result;
+        }
+        List<Task> unscheduledTasks = new ArrayList<>();
+        for (Task task : result.getUnscheduledTasks()) {
+            if (winner.dayOf(task) < 0) {
+                unscheduledTasks.add(task);
+            }
+        }
+        // Copied once more so the result's registry is not shared with the discarded restarts
+        ActivityRegistry own = registry.copy();
+        Timetable timetable = Solution.copyOf(winner.timetable, own);
+        return new ScheduleResult(timetable, unscheduledTasks, new ScheduleContext(
+                context.startDate, context.endDate, context.calendar.copyFor(timetable),
+                context.template.on(own, context.calendar),
+                new GapAllocator(timetable, context.allocator.getPolicy()), context.events),
+                result.getEventConflicts());
+    }
+
+    // Waits for interrupted workers to see their stop check, keeping this thread's interrupt
+    private static void awaitWorkers(ExecutorService pool) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void climb(Solution solution, Random random, long deadline) {
+        int limit = 200 + 20 * solution.tasks.length;
+        int stale = 0;
+        for (int step = 1; stale < limit; step++) {
+            if (step % STEPS_PER_STOP_CHECK == 0 && stopped(deadline)) {
+                return;
+            }
+            boolean improved = random.nextInt(3) == 0 ? solution.trySwap(random) : solution.tryMove(random, false);
+            stale = improved ? 0 : stale + 1;
+        }
+    }
+
+    private boolean stopped(long deadline) {
+        return cancelled || Thread.currentThread().isInterrupted() || System.nanoTime() > deadline;
+    }
+
+    // One candidate schedule: a private timetable plus where every task sits (day -1 = unscheduled)
+    private static final class Solution {
+        final Timetable timetable;
+        final CalendarMetadata calendar;
+        final Task[] tasks;
+        final TaskCosts[] costs;
+        final int[] ids;
+        final int[] day;
+        final int[] start;
+        long score;
+
+        private Solution(Timetable timetable, CalendarMetadata calendar, Task[] tasks, TaskCosts[] costs,
+                         int[] ids, int[] day, int[] start) {
+            this.timetable = timetable;
+            this.calendar = calendar;
+            this.tasks = tasks;
+            this.costs = costs;
+            this.ids = ids;
+            this.day = day;
+            this.start = start;
+        }
+
+        static Solution capture(ScheduleResult result, CalendarMetadata calendar, ActivityRegistry registry) {
+            Timetable timetable = copyOf(result.getTimetable(), registry);
+            List<Task> tasks = new ArrayList<>();
+            List<int[]> places = new ArrayList<>();
+            for (int d = 0; d < timetable.getDays(); d++) {
+                for (int s = 0; s < timetable.getSlotsPerDay(); s++) {
+                    Activity activity = timetable.getActivity(d, s);
+                    if (activity instanceof Task && (s == 0 || timetable.getActivity(d, s - 1) != activity)) {
+                        tasks.add((Task) activity);
+                        places.add(new int[]{d, s});
+                    }
+                }
+            }
+            for (Task task : result.getUnscheduledTasks()) {
+                tasks.add(task);
+                places.add(new int[]{-1, -1});
+            }
+            int n = tasks.size();
+            TaskCosts[] costs = new TaskCosts[n];
+            int[] ids = new int[n];
+            int[] day = new int[n];
+            int[] start = new int[n];
+            for (int i = 0; i < n; i++) {
+                costs[i] = TaskCosts.of(tasks.get(i), calendar);
+                ids[i] = timetable.getRegistry().intern(tasks.get(i));
+                day[i] = places.get(i)[0];
+                start[i] = places.get(i)[1];
+            }
+            Solution solution = new Solution(timetable, calendar, tasks.toArray(new Task[0]), costs, ids, day, start);
+            solution.score = ScheduleScore.score(new ScheduleResult(timetable, result.getUnscheduledTasks(),
+                    result.getContext()));
+            return solution;
+        }
+
+        Solution copy() {
+            Solution copy = new Solution(copyOf(timetable, timetable.getRegistry()), calendar, tasks, costs, ids, day.clone(), start.clone());
+            copy.score = score;
+            return copy;
+        }
+
+        int unscheduled() {
+            int count = 0;
+            for (int d : day) {
+                if (d < 0) count++;
+            }
+            return count;
+        }
+
+        int dayOf(Task task) {
+            for (int i = 0; i < tasks.length; i++) {
+                if (tasks[i] == task) return day[i];
+            }
+            return -1;
+        }
+
+        /** Random moves kept whatever they do to the score, to start a restart elsewhere. */
+        void kick(Random random, int moves) {
+            for (int m = 0; m < moves; m++) {
+                tryMove(random, true);
+            }
+        }
+
+        /**
+         * Moves a random task to a random free run on a random allowed day, or places it
+         * if it was unscheduled. Keeps the move when forced or when the score does not get
+         * worse; returns true only when it got strictly better.
+         */
+        boolean tryMove(Random random, boolean force) {
+            int i = random.nextInt(tasks.length);
+            int length = tasks[i].getDurationInSlots();
+            int d = random.nextInt(timetable.getDays());
+            int slotsPerDay = timetable.getSlotsPerDay();
+            if (length <= 0 || length > slotsPerDay || !calendar.isAllowed(tasks[i], d)) {
+                return false;
+            }
+            int oldDay = day[i];
+            int oldStart = start[i];
+            long before = cost(i) + ScheduleScore.FREE_GAP * gaps(oldDay, d);
+            unplace(i);
+            int s = timetable.findFreeRun(d, random.nextInt(slotsPerDay), slotsPerDay - 1, length);
+            if (s < 0) {
+                s = timetable.findFreeRun(d, 0, slotsPerDay - 1, length);
+            }
+            if (s < 0 || (d == oldDay && s == oldStart)) {
+                place(i, oldDay, oldStart);
+                return false;
+            }
+            place(i, d, s);
+            long delta = cost(i) + ScheduleScore.FREE_GAP * gaps(oldDay, d) - before;
+            if (force || delta <= 0) {
+                score += delta;
+                return delta < 0;
+            }
+            unplace(i);
+            place(i, oldDay, oldStart);
+            return false;
+        }
+
+        /** Swaps the places of two random placed tasks when both fit in the other's slot. */
+        boolean trySwap(Random random) {
+            int i = random.nextInt(tasks.length);
+            int j = random.nextInt(tasks.length);
+            if (i == j || day[i] < 0 || day[j] < 0 || tasks[i].getDurationInSlots() == tasks[j].getDurationInSlots()
+                    && costs[i].sameCostsAs(costs[j])) {
+                // Swapping interchangeable tasks cannot change the score
+                return false;
+            }
+            int di = day[i], si = start[i], dj = day[j], sj = start[j];
+            if (!calendar.isAllowed(tasks[i], dj) || !calendar.isAllowed(tasks[j], di)) {
+                return false;
+            }
+            long before = cost(i) + cost(j) + ScheduleScore.FREE_GAP * gaps(di, dj);
+            unplace(i);
+            unplace(j);
+            if (timetable.isRangeFree(dj, sj, tasks[i].getDurationInSlots())) {
+                place(i, dj, sj);
+                if (timetable.isRangeFree(di, si, tasks[j].getDurationInSlots())) {
+                    place(j, di, si);
+                    long delta = cost(i) + cost(j) + ScheduleScore.FREE_GAP * gaps(di, dj) - before;
+                    if (delta <= 0) {
+                        score += delta;
+                        return delta < 0;
+                    }
+                    unplace(j);
+                }
+                unplace(i);
+            }
+            place(i, di, si);
+            place(j, dj, sj);
+            return false;
+        }
+
+        // O(1) from the precomputed vectors, so each move is scored as a delta
+        private long cost(int i) {
+            return day[i] < 0 ? ScheduleScore.UNSCHEDULED_TASK
+                    : costs[i].cost(day[i], start[i], tasks[i].getDurationInSlots());
+        }
+
+        // Free gaps on one or two days (-1 for no day), counting a repeated day once
+        private int gaps(int d1, int d2) {
+            int total = d1 >= 0 ? ScheduleScore.freeGaps(timetable.occupancy(d1), timetable.getSlotsPerDay()) : 0;
+            if (d2 >= 0 && d2 != d1) {
+                total += ScheduleScore.freeGaps(timetable.occupancy(d2), timetable.getSlotsPerDay());
+            }
+            return total;
+        }
+
+        private void place(int i, int d, int s) {
+            day[i] = d;
+            start[i] = s;
+            if (d >= 0) {
+                timetable.fillId(d, s, tasks[i].getDurationInSlots(), ids[i]);
+            }
+        }
+
+        private void unplace(int i) {
+            if (day[i] >= 0) {
+                timetable.fillId(day[i], start[i], tasks[i].getDurationInSlots(), ActivityRegistry.FREE);
+            }
+            day[i] = -1;
+        }
+
+        /**
+         * Dense copy on {@code registry}: the source's own one, or a {@link ActivityRegistry#copy}
+         * of it, under which every id means the same. Written run by run in the latter case,
+         * since bulk day copies need one registry.
+         */
+        static Timetable copyOf(Timetable source, ActivityRegistry registry) {
+            Timetable copy = new Timetable(source.getDays(), registry, source.getSlotGrid());
+            int slotsPerDay = source.getSlotsPerDay();
+            for (int d = 0; d < source.getDays(); d++) {
+                if (registry == source.getRegistry()) {
+                    copy.copyDay(source, d, d);
+                    continue;
+                }
+                int s = 0;
+                while (s < slotsPerDay) {
+                    int id = source.getSlotId(d, s);
+                    int end = s + 1;
+                    while (end < slotsPerDay && source.getSlotId(d, end) == id) {
+                        end++;
+                    }
+                    if (id != ActivityRegistry.FREE) {
+                        copy.fillId(d, s, end - s, id);
+                    }
+                    s = end;
+                }
+            }
+            return copy;
+        }
+    }
+}
@@ -1,20 +1,12 @@
 package com.example;
 
 import java.util.*;
-class RecurringTask {
-    String name;
-    int slots;
-    List<Integer> days; // days to repeat on (0=Mon, 6=Sun)
-    RecurringTask(String name, int slots, List<Integer> days) {
-        this.name = name;
-        this.slots = slots;
-        this.days = days;
-    }
-}
 
 public class Main {
     public static void main(String[] args) {
         Scanner scanner = new Scanner(System.in);
+        SchedulerService scheduler = new SchedulerService();
+        SlotGrid grid = scheduler.getSlotGrid();
 
         // 1. Get work info
         System.out.println("Enter workdays as comma-separated numbers (0=Mon, 6=Sun), e.g., 0,1,2,3,4 for Mon-Fri:");
@@ -35,16 +27,25 @@ public class Main {
         System.out.println("Enter work duration in hours: ");
         int workDurationHours = scanner.nextInt();
 
-        int workStartSlot = workHour * 2 + (workMinute == 30 ? 1 : 0);
-        int workDurationSlots = workDurationHours * 2;
+        int workStartSlot = grid.slotAt(workHour, workMinute);
+        int workDurationSlots = grid.slotsFor(workDurationHours, 0);
 
         // 2. Get sleep info
         System.out.println("Enter sleep duration in hours (e.g., 6 or 8): ");
         int sleepDurationHours = scanner.nextInt();
-        int sleepDurationSlots = sleepDurationHours * 2;
+        int sleepDurationSlots = grid.slotsFor(sleepDurationHours, 0);
 
-        // 3. Get tasks
-        List<RecurringTask> recurringTasks = new ArrayList<>();
+        // Find next Monday from today
+        java.time.LocalDate today = java.time.LocalDate.now();
+        java.time.DayOfWeek dow = today.getDayOfWeek();
+        int daysUntilMonday = (java.time.DayOfWeek.MONDAY.getValue() - dow.getValue() + 7) % 7;
+        if (daysUntilMonday == 0) daysUntilMonday = 7; // always next Monday
+        java.time.LocalDate nextMonday = today.plusDays(daysUntilMonday);
+        java.time.LocalDate endDate = nextMonday.plusDays(6); // 7-day week
+
+        // 3. Get tasks, one per typed day and in the order typed. Weekday-targeted rather
+        // than date-pinned, so a task whose day is full can still fall back to another day
+        List<Task> tasks = new ArrayList<>();
         System.out.println("Enter number of tasks: ");
         int numTasks = scanner.nextInt();
         scanner.nextLine(); // consume newline
@@ -54,54 +55,68 @@ public class Main {
             System.out.println("Task duration in hours (e.g., 0.5, 1, 1.5): ");
             double dur = scanner.nextDouble();
             scanner.nextLine(); // consume newline
-            int slots = (int) Math.round(dur * 2);
+            int slots = grid.slotsFor(0, (int) Math.round(dur * 60));
             System.out.println("Should this task repeat on specific days? (yes/no): ");
             String repeat = scanner.nextLine().trim().toLowerCase();
             List<Integer> days = new ArrayList<>();
             if (repeat.equals("yes")) {
                 System.out.println("Enter days as comma-separated numbers (0=Mon, 6=Sun), e.g., 0,2,4: ");
-                String daysInput = scanner.nextLine();
-                String[] dayTokens = daysInput.split(",");
-                for (String token : dayTokens) {
-                    try {
-                        days.add(Integer.parseInt(token.trim()));
-                    } catch (NumberFormatException e) {}
-                }
+                days = readDays(scanner);
             } else {
                 // If not recurring, schedule on any day
                 for (int d = 0; d < 7; d++) days.add(d);
             }
-            recurringTasks.add(new RecurringTask(name, slots, days));
+            for (int day : days) {
+                tasks.add(new Task(name, slots, day));
+            }
         }
 
-
-    // Flatten recurringTasks into a list of Task objects for each day
-    List<Task> tasks = new ArrayList<>();
-    for (RecurringTask rt : recurringTasks) {
-        for (int day : rt.days) {
-            tasks.add(new Task(rt.name, rt.slots, day));
+        // 4. Get events that repeat every week, such as classes or meetings
+        List<RecurringEvent> recurringEvents = new ArrayList<>();
+        System.out.println("Enter number of weekly events: ");
+        int numEvents = scanner.nextInt();
+        scanner.nextLine(); // consume newline
+        for (int i = 0; i < numEvents; i++) {
+            System.out.println("Event " + (i + 1) + " name: ");
+            String name = scanner.nextLine();
+            System.out.println("Event start hour (0-23): ");
+            int hour = scanner.nextInt();
+            System.out.println("Event start minute (0 or 30): ");
+            int minute = scanner.nextInt();
+            System.out.println("Event duration in hours (e.g., 0.5, 1, 1.5): ");
+            double dur = scanner.nextDouble();
+            scanner.nextLine(); // consume newline
+            System.out.println("Enter days as comma-separated numbers (0=Mon, 6=Sun), e.g., 0,2,4: ");
+            List<Integer> days = readDays(scanner);
+            if (!days.isEmpty()) {
+                recurringEvents.add(new RecurringEvent(name, grid.slotsFor(0, (int) Math.round(dur * 60)),
+                        grid.slotAt(hour, minute), RecurrenceRule.weekly(nextMonday, days)));
+            }
         }
-    }
-
-    SchedulerService scheduler = new SchedulerService();
-    // Find next Monday from today
-    java.time.LocalDate today = java.time.LocalDate.now();
-    java.time.DayOfWeek dow = today.getDayOfWeek();
-    int daysUntilMonday = (java.time.DayOfWeek.MONDAY.getValue() - dow.getValue() + 7) % 7;
-    if (daysUntilMonday == 0) daysUntilMonday = 7; // always next Monday
-    java.time.LocalDate nextMonday = today.plusDays(daysUntilMonday);
-    java.time.LocalDate endDate = nextMonday.plusDays(6); // 7-day week
 
     ScheduleResult scheduleResult = scheduler.generateTimetable(
         workdays, workStartSlot, workDurationSlots,
-        sleepDurationSlots, tasks, new ArrayList<Event>(),
+        sleepDurationSlots, tasks, new ArrayList<RecurringTask>(),
+        new ArrayList<Event>(), recurringEvents,
         nextMonday, endDate
     );
 
     ScheduleViewer viewer = new ScheduleViewer();
     viewer.printWeeklySchedule(scheduleResult.getTimetable(), nextMonday);
     if (!scheduleResult.getUnscheduledTasks().isEmpty()) {
-        viewer.printUnscheduledTasks(scheduleResult.getUnscheduledTasks());
+        viewer.printUnscheduledTasks(scheduleResult.getUnscheduledTasks(), grid);
     }
     }
+
+    // Weekdays 0-6 from a comma-separated line; anything else is skipped
+    private static List<Integer> readDays(Scanner scanner) {
+        List<Integer> days = new ArrayList<>();
+        for (String token : scanner.nextLine().split(",")) {
+            try {
+                int day = Integer.parseInt(token.trim());
+                if (day >= 0 && day <= 6) days.add(day);
+            } catch (NumberFormatException e) {}
+        }
+        return days;
+    }
 }
@@ -0,0 +1,231 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel driver for {@link SchedulerService#generateTimetable}. The horizon is cut into
+ * week partitions that only ever write their own days, so they can be filled concurrently.
+ *
+ * Events and the sleep/work template are independent per day and run as one job per
+ * partition. Tasks are greedy: each takes the first day that fits. A task only reaches
+ * partition k after partitions 0..k-1 rejected it, so the tasks run through the
+ * partitions as a wavefront. Partition k handles a chunk of tasks once partition k-1 is
+ * done with that chunk and partition k is done with the previous chunk, which replays
+ * the sequential order exactly. Tasks rejected by every partition are merged back in
+ * list order; a day-pinned one gets the sequential fallback, after which later
+ * placements are rolled back and replayed against the new state.
+ */
+final class PartitionedScheduler {
+    static final int DAYS_PER_PARTITION = 7;
+    private static final int TASKS_PER_CHUNK = 32;
+
+    private final SchedulerService service;
+    private final ForkJoinPool pool;
+    private final Timetable timetable;
+    private final CalendarMetadata calendar;
+    private final GapAllocator allocator;
+    private final GenerationControl control;
+    private final Partition[] partitions;
+
+    PartitionedScheduler(SchedulerService service, ForkJoinPool pool, Timetable timetable,
+                         CalendarMetadata calendar, GapAllocator allocator, GenerationControl control) {
+        this.service = service;
+        this.pool = pool;
+        this.timetable = timetable;
+        this.calendar = calendar;
+        this.allocator = allocator;
+        this.control = control;
+        int days = timetable.getDays();
+        this.partitions = new Partition[(days + DAYS_PER_PARTITION - 1) / DAYS_PER_PARTITION];
+        for (int p = 0; p < partitions.length; p++) {
+            partitions[p] = new Partition(p * DAYS_PER_PARTITION, Math.min(days, (p + 1) * DAYS_PER_PARTITION));
+        }
+        // The shared capacity tree cannot take concurrent updates; partitions scan their own days
+        timetable.dropCapacityIndex();
+    }
+
+    /** Places events, each partition writing the slots that land on its own days in list order. */
+    void placeEvents(EventSweep events) {
+        List<CompletableFuture<Void>> jobs = new ArrayList<>();
+        for (Partition partition : partitions) {
+            jobs.add(CompletableFuture.runAsync(
+                    () -> events.fill(timetable, partition.fromDay, partition.toDay, null), pool));
+        }
+        joinAll(jobs);
+        events.markEventDays(calendar);
+    }
+
+    void applyTemplate(WeeklyTemplate template) {
+        List<CompletableFuture<Void>> jobs = new ArrayList<>();
+        for (Partition partition : partitions) {
+            jobs.add(CompletableFuture.runAsync(() -> {
+                for (int day = partition.fromDay; day < partition.toDay; day++) {
+                    template.applyTo(timetable, calendar, day);
+                }
+            }, pool));
+        }
+        joinAll(jobs);
+    }
+
+    /**
+     * Places the tasks exactly as the sequential loop would and returns the unscheduled ones.
+     * Workers check the control before each chunk; progress is reported between wavefronts.
+     */
+    List<Task> placeTasks(List<Task> tasks) {
+        List<Task> unscheduled = new ArrayList<>();
+        int next = 0;
+        while (next < tasks.size()) {
+            control.progress(GenerationControl.Phase.TASKS, next, tasks.size());
+            int[] rejected = runWavefront(tasks, next);
+            next = tasks.size();
+            for (int index : rejected) {
+                Task task = tasks.get(index);
+                if (task.getTargetDay() == null || task.getDate() != null) {
+                    // Every day was tried with the whole-day window and the fallback cannot do
+                    // better, or the task is pinned to a date and has no fallback
+                    unscheduled.add(task);
+                    continue;
+                }
+                // The fallback must see the timetable as it was right after this task, so
+                // take back everything later tasks placed and then try it
+                control.checkpoint();
+                List<int[]> undone = rollBackAfter(index);
+                long fallbackStart = System.nanoTime();
+                boolean placed = service.tryPlaceTaskWithFallback(allocator, calendar, timetable, task,
+                        timetable.getDays()) >= 0;
+                control.fallbackUsed(fallbackStart);
+                timetable.dropCapacityIndex();
+                if (placed) {
+                    // State changed under the later tasks: replay them from here
+                    next = index + 1;
+                    break;
+                }
+                // Nothing changed, so the rolled back placements are still exactly right
+                unscheduled.add(task);
+                for (int[] placement : undone) {
+                    reapply(tasks, placement);
+                }
+            }
+        }
+        return unscheduled;
+    }
+
+    // Runs tasks[from..] through every partition and returns the indices no partition could take
+    private int[] runWavefront(List<Task> tasks, int from) {
+        int chunks = (tasks.size() - from + TASKS_PER_CHUNK - 1) / TASKS_PER_CHUNK;
+        List<CompletableFuture<int[]>> previousRow = new ArrayList<>();
+        for (int c = 0; c < chunks; c++) {
+            int start = from + c * TASKS_PER_CHUNK;
+            int end = Math.min(tasks.size(), start + TASKS_PER_CHUNK);
+            int[] indices = new int[end - start];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = start + i;
+            }
+            previousRow.add(CompletableFuture.completedFuture(indices));
+        }
+        for (Partition partition : partitions) {
+            List<CompletableFuture<int[]>> row = new ArrayList<>();
+            CompletableFuture<int[]> left = null;
+            for (int c = 0; c < chunks; c++) {
+                CompletableFuture<int[]> input = previousRow.get(c);
+                if (left != null) {
+                    input = input.thenCombine(left, (in, ignored) -> in);
+                }
+                // Chunks that every earlier partition fully placed pass straight through
+                CompletableFuture<int[]> done = input.thenCompose(in -> in.length == 0
+                        ? CompletableFuture.completedFuture(in)
+                        : CompletableFuture.supplyAsync(() -> partition.place(tasks, in), pool));
+                row.add(done);
+                left = done;
+            }
+            previousRow = row;
+        }
+        List<Integer> rejected = new ArrayList<>();
+        for (CompletableFuture<int[]> chunk : previousRow) {
+            for (int index : join(chunk)) {
+                rejected.add(index);
+            }
+        }
+        return rejected.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    // Clears every placement made by tasks after taskIndex, returning them oldest first
+    private List<int[]> rollBackAfter(int taskIndex) {
+        List<int[]> undone = new ArrayList<>();
+        for (Partition partition : partitions) {
+            for (int i = partition.log.size() - 1; i >= 0; i--) {
+                int[] placement = partition.log.get(i);
+                if (placement[0] <= taskIndex) break;
+                partition.log.remove(i);
+                undone.add(placement);
+                timetable.fill(placement[1], placement[2], placement[3], null);
+                allocator.refresh(placement[1]);
+                calendar.resetFreeSlot(timetable, placement[1]);
+            }
+        }
+        undone.sort((a, b) -> Integer.compare(a[0], b[0]));
+        return undone;
+    }
+
+    private void reapply(List<Task> tasks, int[] placement) {
+        timetable.fill(placement[1], placement[2], placement[3], tasks.get(placement[0]));
+        allocator.refresh(placement[1]);
+        calendar.resetFreeSlot(timetable, placement[1]);
+        partitions[placement[1] / DAYS_PER_PARTITION].log.add(placement);
+    }
+
+    private static void joinAll(List<CompletableFuture<Void>> jobs) {
+        for (CompletableFuture<Void> job : jobs) {
+            join(job);
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private final class Partition {
+        final int fromDay;
+        final int toDay;
+        // {taskIndex, day, startSlot, length} per placement, in task order
+        final List<int[]> log = new ArrayList<>();
+
+        Partition(int fromDay, int toDay) {
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+        }
+
+        // Same day loop as the sequential scheduler, limited to this partition's days
+        int[] place(List<Task> tasks, int[] indices) {
+            control.checkpoint();
+            int[] rejected = new int[indices.length];
+            int count = 0;
+            for (int index : indices) {
+                Task task = tasks.get(index);
+                int placedAt = -1;
+                for (int day = fromDay; day < toDay && placedAt < 0; day++) {
+                    if (!calendar.isOwnDay(task, day)) continue;
+                    placedAt = service.tryPlaceTaskOnDay(allocator, calendar, day, task);
+                    if (placedAt >= 0) {
+                        log.add(new int[]{index, day, placedAt, task.getDurationInSlots()});
+                    }
+                }
+                if (placedAt < 0) {
+                    rejected[count++] = index;
+                }
+            }
+            return java.util.Arrays.copyOf(rejected, count);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example;
+
+/**
+ * What a {@link PlacementStrategy} sees of a generation in progress: the timetable
+ * with its fixed layers in place, the calendar facts per day, and write methods
+ * that keep the scheduler's gap lists and free-slot cursors in step.
+ */
+public final class PlacementContext {
+    private final SchedulerService service;
+    private final Timetable timetable;
+    private final ScheduleContext context;
+    private final GenerationControl control;
+
+    PlacementContext(SchedulerService service, Timetable timetable, ScheduleContext context,
+                     GenerationControl control) {
+        this.service = service;
+        this.timetable = timetable;
+        this.context = context;
+        this.control = control;
+    }
+
+    public Timetable getTimetable() {
+        return timetable;
+    }
+
+    public int getDays() {
+        return timetable.getDays();
+    }
+
+    /** Weekday of a day index, 0=Mon to 6=Sun. */
+    public int weekday(int day) {
+        return context.calendar.weekday(day);
+    }
+
+    public boolean isWorkday(int day) {
+        return context.calendar.isWorkday(day);
+    }
+
+    public boolean hasEvent(int day) {
+        return context.calendar.hasEvent(day);
+    }
+
+    CalendarMetadata calendar() {
+        return context.calendar;
+    }
+
+    /**
+     * True when the greedy pass could ever put the task on this day: its target weekday,
+     * or one of the fallback days (the first three, and non-work days without events).
+     */
+    public boolean isAllowed(Task task, int day) {
+        return context.calendar.isAllowed(task, day);
+    }
+
+    /** Places the task the way the greedy pass does. Returns the day it landed on, or -1. */
+    public int placeGreedy(Task task) {
+        return service.placeTask(context.allocator, context.calendar, timetable, task, control);
+    }
+
+    /**
+     * Reports that {@code done} of {@code total} tasks are settled. Strategies should call
+     * it often: it is also where a cancelled or overdue generation stops, by throwing
+     * {@link java.util.concurrent.CancellationException}.
+     */
+    public void progress(int done, int total) {
+        control.progress(GenerationControl.Phase.TASKS, done, total);
+    }
+
+    /** Writes the task into free slots [startSlot, startSlot + duration) of the day. */
+    public void place(Task task, int day, int startSlot) {
+        if (!timetable.isRangeFree(day, startSlot, task.getDurationInSlots())) {
+            throw new IllegalStateException("Slots already occupied at day " + day + ", slot " + startSlot);
+        }
+        timetable.fill(day, startSlot, task.getDurationInSlots(), task);
+        context.allocator.refresh(day);
+        context.calendar.slotsTaken(timetable, day, startSlot);
+    }
+
+    /** Frees slots [startSlot, startSlot + length) of the day again. */
+    public void remove(int day, int startSlot, int length) {
+        timetable.fill(day, startSlot, length, null);
+        context.allocator.refresh(day);
+        context.calendar.resetFreeSlot(timetable, day);
+    }
+}
@@ -0,0 +1,15 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * Decides where tasks go once events, sleep and work are in place. Set one on
+ * {@link SchedulerService#setPlacementStrategy}; the default is {@link GreedyPlacement}.
+ */
+public interface PlacementStrategy {
+    /**
+     * Places {@code tasks} through {@code context} and returns the ones left out, in
+     * input order. They become {@link ScheduleResult#getUnscheduledTasks()}.
+     */
+    List<Task> placeTasks(PlacementContext context, List<Task> tasks);
+}
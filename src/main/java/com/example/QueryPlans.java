@@ -0,0 +1,46 @@
+package com.example;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks that hot queries are answered through an index. Each query goes through
+ * EXPLAIN QUERY PLAN with its parameters bound to null, and any plan step that reads a
+ * whole table is reported.
+ */
+final class QueryPlans {
+    private QueryPlans() {
+    }
+
+    /** One line per plan step that scans a table, as "query name: plan detail"; empty when none does. */
+    static List<String> tableScans(ConnectionManager.Session session, Map<String, String> queries) throws SQLException {
+        List<String> scans = new ArrayList<>();
+        for (Map.Entry<String, String> query : queries.entrySet()) {
+            try (PreparedStatement pstmt = session.connection().prepareStatement("EXPLAIN QUERY PLAN " + query.getValue())) {
+                int parameters = pstmt.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    pstmt.setNull(i, Types.NULL);
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        String detail = rs.getString("detail");
+                        if (isTableScan(detail)) {
+                            scans.add(query.getKey() + ": " + detail);
+                        }
+                    }
+                }
+            }
+        }
+        return scans;
+    }
+
+    // "SCAN t" reads every row; "SCAN t USING [COVERING] INDEX i" walks an index in order instead
+    static boolean isTableScan(String detail) {
+        return detail.startsWith("SCAN ") && !detail.contains(" USING ") && !detail.startsWith("SCAN CONSTANT ROW");
+    }
+}
@@ -0,0 +1,163 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * When something repeats: every day, every N days, or on chosen weekdays each week,
+ * starting at a date and running until a date, for a number of times, or forever.
+ *
+ * Occurrences are never stored. {@link #occurrences} walks them on demand and jumps
+ * straight to the first one inside the requested window, so a rule spanning years costs
+ * nothing beyond the dates actually asked for. Rules are immutable; {@link #until} and
+ * {@link #times} return limited copies.
+ */
+public final class RecurrenceRule {
+    // Epoch day 0, 1970-01-01, was a Thursday; weekdays count from Monday = 0
+    private static final int EPOCH_WEEKDAY = 3;
+
+    private final LocalDate start;
+    private final int intervalDays;   // step between occurrences, 1 for weekly rules
+    private final int weekdayMask;    // bit d set for weekday d; 0 for interval rules
+    private final LocalDate until;    // last possible date, inclusive; null for none
+    private final long count;         // occurrences from the start; 0 for unlimited
+
+    private RecurrenceRule(LocalDate start, int intervalDays, int weekdayMask, LocalDate until, long count) {
+        this.start = start;
+        this.intervalDays = intervalDays;
+        this.weekdayMask = weekdayMask;
+        this.until = until;
+        this.count = count;
+    }
+
+    public static RecurrenceRule daily(LocalDate start) {
+        return everyNDays(start, 1);
+    }
+
+    public static RecurrenceRule everyNDays(LocalDate start, int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1 day, got " + days);
+        }
+        return new RecurrenceRule(start, days, 0, null, 0);
+    }
+
+    /** On the given weekdays (0=Mon, 6=Sun) of every week, from {@code start} on. */
+    public static RecurrenceRule weekly(LocalDate start, Iterable<Integer> weekdays) {
+        int mask = 0;
+        for (int weekday : weekdays) {
+            if (weekday < 0 || weekday > 6) {
+                throw new IllegalArgumentException("Weekday must be 0 (Mon) to 6 (Sun), got " + weekday);
+            }
+            mask |= 1 << weekday;
+        }
+        if (mask == 0) {
+            throw new IllegalArgumentException("A weekly rule needs at least one weekday");
+        }
+        return new RecurrenceRule(start, 1, mask, null, 0);
+    }
+
+    /** Copy that stops after {@code lastDate}, inclusive. */
+    public RecurrenceRule until(LocalDate lastDate) {
+        return new RecurrenceRule(start, intervalDays, weekdayMask, lastDate, count);
+    }
+
+    /** Copy that stops after {@code times} occurrences counted from the start date. */
+    public RecurrenceRule times(int times) {
+        if (times < 1) {
+            throw new IllegalArgumentException("Count must be at least 1, got " + times);
+        }
+        return new RecurrenceRule(start, intervalDays, weekdayMask, until, times);
+    }
+
+    public LocalDate getStart() {
+        return start;
+    }
+
+    /**
+     * Occurrences between {@code from} and {@code to}, both inclusive, in date order. The
+     * count limit still counts from the start date, so occurrences before {@code from}
+     * use it up without being visited.
+     */
+    public Iterator<LocalDate> occurrences(LocalDate from, LocalDate to) {
+        long first = Math.max(from.toEpochDay(), start.toEpochDay());
+        long last = until == null ? to.toEpochDay() : Math.min(to.toEpochDay(), until.toEpochDay());
+        return new Occurrences(firstOnOrAfter(first), last);
+    }
+
+    /** Same as {@link #occurrences}, for use in for-each loops. */
+    public Iterable<LocalDate> between(LocalDate from, LocalDate to) {
+        return () -> occurrences(from, to);
+    }
+
+    private boolean isWeekly() {
+        return weekdayMask != 0;
+    }
+
+    private static int weekdayOf(long epochDay) {
+        return (int) Math.floorMod(epochDay + EPOCH_WEEKDAY, 7L);
+    }
+
+    // First occurrence on or after the day, which must not be before the start
+    private long firstOnOrAfter(long epochDay) {
+        if (isWeekly()) {
+            while ((weekdayMask & (1 << weekdayOf(epochDay))) == 0) {
+                epochDay++;
+            }
+            return epochDay;
+        }
+        long offset = epochDay - start.toEpochDay();
+        return start.toEpochDay() + (offset + intervalDays - 1) / intervalDays * intervalDays;
+    }
+
+    // Occurrences strictly before the day, which must not be before the start
+    private long occurrencesBefore(long epochDay) {
+        long startDay = start.toEpochDay();
+        if (!isWeekly()) {
+            return (epochDay - startDay + intervalDays - 1) / intervalDays;
+        }
+        // Whole weeks from the start's Monday, less the days of the first week before the start
+        long monday = startDay - weekdayOf(startDay);
+        long weeks = (epochDay - monday) / 7;
+        int rest = (int) ((epochDay - monday) % 7);
+        return weeks * Integer.bitCount(weekdayMask)
+                + Integer.bitCount(weekdayMask & ((1 << rest) - 1))
+                - Integer.bitCount(weekdayMask & ((1 << weekdayOf(startDay)) - 1));
+    }
+
+    private final class Occurrences implements Iterator<LocalDate> {
+        private long next;
+        private final long last;
+        private long index;
+
+        Occurrences(long first, long last) {
+            this.next = first;
+            this.last = last;
+            this.index = count == 0 ? 0 : occurrencesBefore(first);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next <= last && (count == 0 || index < count);
+        }
+
+        @Override
+        public LocalDate next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            LocalDate date = LocalDate.ofEpochDay(next);
+            next = isWeekly() ? firstOnOrAfter(next + 1) : next + intervalDays;
+            index++;
+            return date;
+        }
+    }
+
+    @Override
+    public String toString() {
+        String every = isWeekly() ? "weekly on mask " + Integer.toBinaryString(weekdayMask)
+                : intervalDays == 1 ? "daily" : "every " + intervalDays + " days";
+        return every + " from " + start + (until == null ? "" : " until " + until)
+                + (count == 0 ? "" : ", " + count + " times");
+    }
+}
@@ -0,0 +1,55 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+
+/**
+ * An event at the same time of day on every date of a {@link RecurrenceRule}, such as a
+ * standup or a weekly class. Occurrences become {@link Event}s only as {@link #expand}
+ * reaches them.
+ */
+public class RecurringEvent {
+    private final String name;
+    private final int durationInSlots;
+    private final int startSlot;
+    private final RecurrenceRule rule;
+
+    public RecurringEvent(String name, int durationInSlots, int startSlot, RecurrenceRule rule) {
+        this.name = name;
+        this.durationInSlots = durationInSlots;
+        this.startSlot = startSlot;
+        this.rule = rule;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDurationInSlots() {
+        return durationInSlots;
+    }
+
+    public int getStartSlot() {
+        return startSlot;
+    }
+
+    public RecurrenceRule getRule() {
+        return rule;
+    }
+
+    /** One event per occurrence from {@code from} to {@code to}, created as iterated. */
+    public Iterator<Event> expand(LocalDate from, LocalDate to) {
+        Iterator<LocalDate> dates = rule.occurrences(from, to);
+        return new Iterator<Event>() {
+            @Override
+            public boolean hasNext() {
+                return dates.hasNext();
+            }
+
+            @Override
+            public Event next() {
+                return new Event(name, durationInSlots, dates.next(), startSlot);
+            }
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+
+/**
+ * A task that comes back by a {@link RecurrenceRule}. Each occurrence becomes its own
+ * {@link Task}, but only when {@link #expand} reaches it, so only the occurrences inside
+ * the generated range ever exist.
+ *
+ * {@link #expand} pins each occurrence to its date: if that day is full the occurrence
+ * is left unscheduled rather than moved.
+ */
+public class RecurringTask {
+    private final String name;
+    private final int durationInSlots;
+    private final String preferredTime;
+    private final RecurrenceRule rule;
+
+    public RecurringTask(String name, int durationInSlots, String preferredTime, RecurrenceRule rule) {
+        this.name = name;
+        this.durationInSlots = durationInSlots;
+        this.preferredTime = preferredTime == null ? "any" : preferredTime;
+        this.rule = rule;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDurationInSlots() {
+        return durationInSlots;
+    }
+
+    public String getPreferredTime() {
+        return preferredTime;
+    }
+
+    public RecurrenceRule getRule() {
+        return rule;
+    }
+
+    /** One task per occurrence from {@code from} to {@code to}, created as iterated. */
+    public Iterator<Task> expand(LocalDate from, LocalDate to) {
+        Iterator<LocalDate> dates = rule.occurrences(from, to);
+        return new Iterator<Task>() {
+            @Override
+            public boolean hasNext() {
+                return dates.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                Task task = new Task(name, durationInSlots, null, preferredTime);
+                task.setDate(dates.next());
+                return task;
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package com.example;
+
+/**
+ * What {@link SchedulerService#simulate} keeps of one generated scenario: a few numbers
+ * to compare variants by, not the timetable. Pass the scenario of the chosen summary to
+ * {@link SchedulerService#generateTimetable(ScheduleScenario)} to get the full timetable.
+ * With the default {@link GreedyPlacement} generation is deterministic, so that is the
+ * timetable that was summarized. A strategy with a wall-clock budget, such as
+ * {@link BranchAndBoundPlacement}, searches further or less far depending on how busy the
+ * machine is (scenarios are simulated side by side but regenerated alone), so its
+ * regenerated timetable can score better or worse than its summary.
+ */
+public final class ScenarioSummary {
+    private final ScheduleScenario scenario;
+    private final int scheduledTasks;
+    private final int unscheduledTasks;
+    private final int taskSlots;
+    private final int freeSlots;
+    private final long preferenceCost;
+    private final long score;
+
+    private ScenarioSummary(ScheduleScenario scenario, int scheduledTasks, int unscheduledTasks,
+                            int taskSlots, int freeSlots, long preferenceCost, long score) {
+        this.scenario = scenario;
+        this.scheduledTasks = scheduledTasks;
+        this.unscheduledTasks = unscheduledTasks;
+        this.taskSlots = taskSlots;
+        this.freeSlots = freeSlots;
+        this.preferenceCost = preferenceCost;
+        this.score = score;
+    }
+
+    static ScenarioSummary of(ScheduleScenario scenario, ScheduleResult result) {
+        Timetable timetable = result.getTimetable();
+        int slotsPerDay = timetable.getSlotsPerDay();
+        int taskSlots = 0;
+        int freeSlots = 0;
+        for (int day = 0; day < timetable.getDays(); day++) {
+            for (int slot = 0; slot < slotsPerDay; slot++) {
+                Activity activity = timetable.getActivity(day, slot);
+                if (activity == null) {
+                    freeSlots++;
+                } else if (activity instanceof Task) {
+                    taskSlots++;
+                }
+            }
+        }
+        int unscheduled = result.getUnscheduledTasks().size();
+        return new ScenarioSummary(scenario, scenario.getTasks().size() - unscheduled, unscheduled,
+                taskSlots, freeSlots, ScheduleScore.placementCosts(result), ScheduleScore.score(result));
+    }
+
+    public ScheduleScenario getScenario() {
+        return scenario;
+    }
+
+    public int getScheduledTasks() {
+        return scheduledTasks;
+    }
+
+    public int getUnscheduledTasks() {
+        return unscheduledTasks;
+    }
+
+    /** Share of the time left over by sleep, work and events that tasks fill, from 0 to 1. */
+    public double getUtilization() {
+        int available = taskSlots + freeSlots;
+        return available == 0 ? 0 : (double) taskSlots / available;
+    }
+
+    /** Slots still free once everything is placed. */
+    public int getFreeSlots() {
+        return freeSlots;
+    }
+
+    /**
+     * How far placed tasks are from their preferred time, target weekday and deadline
+     * (see {@link TaskCosts}); 0 when every task got what it asked for.
+     */
+    public long getPreferenceCost() {
+        return preferenceCost;
+    }
+
+    /**
+     * Overall quality as {@link LocalSearchOptimizer} measures it: preference cost plus
+     * fragmentation plus a large penalty per unscheduled task. Lower is better.
+     */
+    public long getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d scheduled, %d unscheduled, %.1f%% utilized, preference cost %d, score %d",
+                scenario.getName(), scheduledTasks, unscheduledTasks, 100 * getUtilization(), preferenceCost, score);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generation state that outlives {@link SchedulerService#generateTimetable}, so the
+ * incremental edits on the service can patch single days of the timetable without
+ * rebuilding the calendar, the weekly template or the allocator's gap lists.
+ */
+final class ScheduleContext {
+    final LocalDate startDate;
+    final LocalDate endDate;
+    final CalendarMetadata calendar;
+    final WeeklyTemplate template;
+    final GapAllocator allocator;
+    // Events in placement order; a later event wins the slots it shares with an earlier one
+    final List<Event> events;
+    // Day each placed task sits on; built by the first edit that needs it, kept up by the edits
+    private Map<Task, Integer> taskDays;
+
+    ScheduleContext(LocalDate startDate, LocalDate endDate, CalendarMetadata calendar,
+                    WeeklyTemplate template, GapAllocator allocator, List<Event> events) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.calendar = calendar;
+        this.template = template;
+        this.allocator = allocator;
+        this.events = new ArrayList<>(events);
+    }
+
+    /** The task index for {@code timetable}, scanning it once on first use. */
+    Map<Task, Integer> taskDays(Timetable timetable) {
+        if (taskDays == null) {
+            taskDays = new IdentityHashMap<>();
+            ActivityRegistry registry = timetable.getRegistry();
+            for (int day = 0; day < timetable.getDays(); day++) {
+                for (int slot = 0; slot < timetable.getSlotsPerDay(); slot++) {
+                    Activity activity = registry.get(timetable.getSlotId(day, slot));
+                    if (activity instanceof Task) {
+                        taskDays.put((Task) activity, day);
+                    }
+                }
+            }
+        }
+        return taskDays;
+    }
+}
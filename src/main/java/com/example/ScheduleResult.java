@@ -6,17 +6,42 @@ import java.util.List;
 public class ScheduleResult {
 	private final Timetable timetable;
 	private final List<Task> unscheduledTasks;
+	// Kept by SchedulerService for incremental edits; null when the result was built elsewhere
+	private final ScheduleContext context;
+	private final List<EventConflict> eventConflicts;
 
 	public ScheduleResult(Timetable timetable, List<Task> unscheduledTasks) {
+		this(timetable, unscheduledTasks, null);
+	}
+
+	ScheduleResult(Timetable timetable, List<Task> unscheduledTasks, ScheduleContext context) {
+		this(timetable, unscheduledTasks, context, List.of());
+	}
+
+	ScheduleResult(Timetable timetable, List<Task> unscheduledTasks, ScheduleContext context,
+			List<EventConflict> eventConflicts) {
 		this.timetable = timetable;
 		this.unscheduledTasks = unscheduledTasks;
+		this.context = context;
+		this.eventConflicts = List.copyOf(eventConflicts);
 	}
 
 	public Timetable getTimetable() {
 		return timetable;
 	}
 
+	// Updated in place by the incremental edits on SchedulerService
 	public List<Task> getUnscheduledTasks() {
 		return unscheduledTasks;
 	}
+
+	// Overlapping events of the generation inputs, ordered by where the overlap starts.
+	// Describes the input as generated; later moveEvent edits do not update it
+	public List<EventConflict> getEventConflicts() {
+		return eventConflicts;
+	}
+
+	ScheduleContext getContext() {
+		return context;
+	}
 }
@@ -0,0 +1,104 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One set of inputs to {@link SchedulerService#generateTimetable}, named so it can be
+ * compared with its variants in {@link SchedulerService#simulate}. The {@code with}
+ * methods return a copy with one setting changed and everything else shared.
+ */
+public final class ScheduleScenario {
+    private final String name;
+    private final List<Integer> workdays;
+    private final int workStartSlot;
+    private final int workDurationSlots;
+    private final int sleepDurationSlots;
+    private final List<Task> tasks;
+    private final List<Event> events;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+    public ScheduleScenario(String name, List<Integer> workdays, int workStartSlot, int workDurationSlots,
+                            int sleepDurationSlots, List<Task> tasks, List<Event> events,
+                            LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Scenario " + name + " ends before it starts");
+        }
+        this.name = name;
+        this.workdays = List.copyOf(workdays);
+        this.workStartSlot = workStartSlot;
+        this.workDurationSlots = workDurationSlots;
+        this.sleepDurationSlots = sleepDurationSlots;
+        this.tasks = List.copyOf(tasks);
+        this.events = List.copyOf(events);
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    public ScheduleScenario withName(String name) {
+        return new ScheduleScenario(name, workdays, workStartSlot, workDurationSlots, sleepDurationSlots,
+                tasks, events, startDate, endDate);
+    }
+
+    public ScheduleScenario withWorkStart(int workStartSlot) {
+        return new ScheduleScenario(name, workdays, workStartSlot, workDurationSlots, sleepDurationSlots,
+                tasks, events, startDate, endDate);
+    }
+
+    public ScheduleScenario withWorkDuration(int workDurationSlots) {
+        return new ScheduleScenario(name, workdays, workStartSlot, workDurationSlots, sleepDurationSlots,
+                tasks, events, startDate, endDate);
+    }
+
+    public ScheduleScenario withSleepDuration(int sleepDurationSlots) {
+        return new ScheduleScenario(name, workdays, workStartSlot, workDurationSlots, sleepDurationSlots,
+                tasks, events, startDate, endDate);
+    }
+
+    public ScheduleScenario withWorkdays(List<Integer> workdays) {
+        return new ScheduleScenario(name, workdays, workStartSlot, workDurationSlots, sleepDurationSlots,
+                tasks, events, startDate, endDate);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Integer> getWorkdays() {
+        return workdays;
+    }
+
+    public int getWorkStartSlot() {
+        return workStartSlot;
+    }
+
+    public int getWorkDurationSlots() {
+        return workDurationSlots;
+    }
+
+    public int getSleepDurationSlots() {
+        return sleepDurationSlots;
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public List<Event> getEvents() {
+        return events;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
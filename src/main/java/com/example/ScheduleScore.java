@@ -0,0 +1,58 @@
+package com.example;
+
+/**
+ * Quality of a finished timetable as one number, lower is better. Adds up the
+ * {@link TaskCosts} of every placed task; per day, the number of free gaps
+ * (fragmentation); and a large penalty per unscheduled task, so placing one more task
+ * always outweighs the rest.
+ */
+final class ScheduleScore {
+    static final long UNSCHEDULED_TASK = 10_000;
+    static final long FREE_GAP = 5;
+
+    private ScheduleScore() {
+    }
+
+    static long score(ScheduleResult result) {
+        Timetable timetable = result.getTimetable();
+        long total = UNSCHEDULED_TASK * result.getUnscheduledTasks().size() + placementCosts(result);
+        int slotsPerDay = timetable.getSlotsPerDay();
+        for (int day = 0; day < timetable.getDays(); day++) {
+            total += FREE_GAP * freeGaps(timetable.occupancy(day), slotsPerDay);
+        }
+        return total;
+    }
+
+    /** The {@link TaskCosts} of every placed task, summed. */
+    static long placementCosts(ScheduleResult result) {
+        Timetable timetable = result.getTimetable();
+        CalendarMetadata calendar = result.getContext().calendar;
+        int slotsPerDay = timetable.getSlotsPerDay();
+        long total = 0;
+        for (int day = 0; day < timetable.getDays(); day++) {
+            for (int slot = 0; slot < slotsPerDay; slot++) {
+                Activity activity = timetable.getActivity(day, slot);
+                if (activity instanceof Task && (slot == 0 || timetable.getActivity(day, slot - 1) != activity)) {
+                    total += placementCost((Task) activity, calendar, day, slot);
+                }
+            }
+        }
+        return total;
+    }
+
+    /** Cost of the task sitting at [startSlot, startSlot + duration) of the day. */
+    static long placementCost(Task task, CalendarMetadata calendar, int day, int startSlot) {
+        return TaskCosts.of(task, calendar).cost(day, startSlot, task.getDurationInSlots());
+    }
+
+    /** Number of maximal free runs in a day's occupancy words. */
+    static int freeGaps(long[] words, int slotsPerDay) {
+        int gaps = 0;
+        int s = SlotBitmap.nextClearBit(words, 0, slotsPerDay);
+        while (s < slotsPerDay) {
+            gaps++;
+            s = SlotBitmap.nextClearBit(words, SlotBitmap.nextSetBit(words, s, slotsPerDay), slotsPerDay);
+        }
+        return gaps;
+    }
+}
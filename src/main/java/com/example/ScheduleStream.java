@@ -0,0 +1,81 @@
+package com.example;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publisher of a timetable that is generated while it is consumed, one
+ * {@link ScheduledDay} at a time in date order. Generation starts when the single
+ * subscriber subscribes and blocks whenever that subscriber has {@code window} days it
+ * has not asked for yet, so a slow consumer (a database writer, a UI) holds the
+ * generator back instead of letting days pile up in memory.
+ *
+ * Cancelling the subscription stops the generator after the current day.
+ */
+public final class ScheduleStream implements Flow.Publisher<ScheduledDay> {
+    private final StreamingScheduler generator;
+    private final int window;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private final CompletableFuture<List<Task>> unscheduledTasks = new CompletableFuture<>();
+
+    ScheduleStream(StreamingScheduler generator, int window) {
+        this.generator = generator;
+        this.window = window;
+    }
+
+    /**
+     * Tasks that could not be placed, available once the last day was published. It is
+     * completed before the subscriber's onComplete, so that callback may read it.
+     */
+    public CompletableFuture<List<Task>> getUnscheduledTasks() {
+        return unscheduledTasks;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ScheduledDay> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("A schedule stream can only be consumed once"));
+            return;
+        }
+        ExecutorService delivery = Executors.newSingleThreadExecutor(r -> daemon(r, "schedule-stream-delivery"));
+        SubmissionPublisher<ScheduledDay> publisher = new SubmissionPublisher<>(delivery, window);
+        publisher.subscribe(subscriber);
+        daemon(() -> {
+            try {
+                // submit() blocks while the subscriber's buffer is full
+                List<Task> unscheduled = generator.run(publisher::submit, () -> !publisher.hasSubscribers());
+                if (unscheduled == null) {
+                    unscheduledTasks.cancel(false);
+                } else {
+                    unscheduledTasks.complete(unscheduled);
+                }
+                publisher.close();
+            } catch (RuntimeException | Error e) {
+                unscheduledTasks.completeExceptionally(e);
+                publisher.closeExceptionally(e);
+            } finally {
+                delivery.shutdown();
+            }
+        }, "schedule-stream-generator").start();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
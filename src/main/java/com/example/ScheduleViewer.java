@@ -10,7 +10,6 @@ public class ScheduleViewer {
      */
     public String getScheduleString(Timetable timetable, LocalDate startDate, LocalDate endDate) {
         StringBuilder sb = new StringBuilder();
-        Activity[][] slots = timetable.getSlots();
         DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd-MM-yy");
         LocalDate today = LocalDate.now();
         int days = (int) java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate) + 1;
@@ -19,16 +18,16 @@ public class ScheduleViewer {
             if (date.isAfter(today)) {
                 sb.append(date.format(fmt)).append(" (").append(getDayName(day)).append("):").append("\n");
                 int start = 0;
-                while (start < 48) {
-                    String name = (slots[day % 7][start] != null) ? slots[day % 7][start].getName() : "Free time";
+                while (start < timetable.getSlotsPerDay()) {
+                    String name = slotName(timetable, day % 7, start);
                     int end = start;
-                    while (end + 1 < 48) {
-                        String nextName = (slots[day % 7][end + 1] != null) ? slots[day % 7][end + 1].getName() : "Free time";
+                    while (end + 1 < timetable.getSlotsPerDay()) {
+                        String nextName = slotName(timetable, day % 7, end + 1);
                         if (!nextName.equals(name)) break;
                         end++;
                     }
-                    String startTime = slotToTime(start);
-                    String endTime = slotToTime(end + 1); // end is inclusive, so add 1
+                    String startTime = slotToTime(timetable, start);
+                    String endTime = slotToTime(timetable, end + 1); // end is inclusive, so add 1
                     sb.append("  ").append(startTime).append(" - ").append(endTime).append(": ").append(name).append("\n");
                     start = end + 1;
                 }
@@ -43,7 +42,6 @@ public class ScheduleViewer {
      */
     public String getScheduleString(Timetable timetable, LocalDate startDate) {
         StringBuilder sb = new StringBuilder();
-        Activity[][] slots = timetable.getSlots();
         DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd-MM-yy");
         LocalDate today = LocalDate.now();
         int startDayIdx = -1;
@@ -59,16 +57,16 @@ public class ScheduleViewer {
             LocalDate date = startDate.plusDays(day);
             sb.append(date.format(fmt)).append(" (").append(getDayName(day)).append("):").append("\n");
             int start = 0;
-            while (start < 48) {
-                String name = (slots[day][start] != null) ? slots[day][start].getName() : "Free time";
+            while (start < timetable.getSlotsPerDay()) {
+                String name = slotName(timetable, day, start);
                 int end = start;
-                while (end + 1 < 48) {
-                    String nextName = (slots[day][end + 1] != null) ? slots[day][end + 1].getName() : "Free time";
+                while (end + 1 < timetable.getSlotsPerDay()) {
+                    String nextName = slotName(timetable, day, end + 1);
                     if (!nextName.equals(name)) break;
                     end++;
                 }
-                String startTime = slotToTime(start);
-                String endTime = slotToTime(end + 1); // end is inclusive, so add 1
+                String startTime = slotToTime(timetable, start);
+                String endTime = slotToTime(timetable, end + 1); // end is inclusive, so add 1
                 sb.append("  ").append(startTime).append(" - ").append(endTime).append(": ").append(name).append("\n");
                 start = end + 1;
             }
@@ -81,7 +79,6 @@ public class ScheduleViewer {
      */
     public String getScheduleString(Timetable timetable, LocalDate weekStartDate, java.time.LocalDateTime displayStartDateTime) {
         StringBuilder sb = new StringBuilder();
-        Activity[][] slots = timetable.getSlots();
         DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd-MM-yy");
         for (int day = 0; day < 7; day++) {
             LocalDate date = weekStartDate.plusDays(day);
@@ -89,19 +86,19 @@ public class ScheduleViewer {
             int start = 0;
             // Only show slots after displayStartDateTime for today
             if (date.equals(displayStartDateTime.toLocalDate())) {
-                int slot = displayStartDateTime.getHour() * 2 + (displayStartDateTime.getMinute() >= 30 ? 1 : 0);
-                start = Math.min(slot, 47);
+                int slot = timetable.getSlotGrid().slotAt(displayStartDateTime.getHour(), displayStartDateTime.getMinute());
+                start = Math.min(slot, timetable.getSlotsPerDay() - 1);
             }
-            while (start < 48) {
-                String name = (slots[day][start] != null) ? slots[day][start].getName() : "Free time";
+            while (start < timetable.getSlotsPerDay()) {
+                String name = slotName(timetable, day, start);
                 int end = start;
-                while (end + 1 < 48) {
-                    String nextName = (slots[day][end + 1] != null) ? slots[day][end + 1].getName() : "Free time";
+                while (end + 1 < timetable.getSlotsPerDay()) {
+                    String nextName = slotName(timetable, day, end + 1);
                     if (!nextName.equals(name)) break;
                     end++;
                 }
-                String startTime = slotToTime(start);
-                String endTime = slotToTime(end + 1); // end is inclusive, so add 1
+                String startTime = slotToTime(timetable, start);
+                String endTime = slotToTime(timetable, end + 1); // end is inclusive, so add 1
                 sb.append("  ").append(startTime).append(" - ").append(endTime).append(": ").append(name).append("\n");
                 start = end + 1;
             }
@@ -116,40 +113,48 @@ public class ScheduleViewer {
     }
 
     public void printWeeklySchedule(Timetable timetable, LocalDate startDate) {
-        Activity[][] slots = timetable.getSlots();
         DateTimeFormatter fmt = DateTimeFormatter.ofPattern("dd-MM-yy");
         for (int day = 0; day < 7; day++) {
             LocalDate date = startDate.plusDays(day);
             System.out.println(date.format(fmt) + " (" + getDayName(day) + "):");
             int start = 0;
-            while (start < 48) {
-                String name = (slots[day][start] != null) ? slots[day][start].getName() : "Free time";
+            while (start < timetable.getSlotsPerDay()) {
+                String name = slotName(timetable, day, start);
                 int end = start;
-                while (end + 1 < 48) {
-                    String nextName = (slots[day][end + 1] != null) ? slots[day][end + 1].getName() : "Free time";
+                while (end + 1 < timetable.getSlotsPerDay()) {
+                    String nextName = slotName(timetable, day, end + 1);
                     if (!nextName.equals(name)) break;
                     end++;
                 }
-                String startTime = slotToTime(start);
-                String endTime = slotToTime(end + 1); // end is inclusive, so add 1
+                String startTime = slotToTime(timetable, start);
+                String endTime = slotToTime(timetable, end + 1); // end is inclusive, so add 1
                 System.out.println("  " + startTime + " - " + endTime + ": " + name);
                 start = end + 1;
             }
         }
     }
 
-    private String slotToTime(int slot) {
-        int hour = (slot / 4) % 24;
-        int minute = (slot % 4) * 15;
-        return String.format("%02d:%02d", hour, minute);
+    private String slotName(Timetable timetable, int day, int slot) {
+        Activity activity = timetable.getActivity(day, slot);
+        return activity != null ? activity.getName() : "Free time";
+    }
+
+    private String slotToTime(Timetable timetable, int slot) {
+        // The end of the last slot wraps round to 00:00
+        return timetable.getSlotGrid().formatSlot(slot % timetable.getSlotsPerDay());
     }
 
     public void printUnscheduledTasks(List<Task> tasks) {
+        printUnscheduledTasks(tasks, SlotGrid.QUARTER_HOUR);
+    }
+
+    // Durations are in slots of the grid the tasks were scheduled on
+    public void printUnscheduledTasks(List<Task> tasks, SlotGrid grid) {
         if (tasks == null || tasks.isEmpty()) return;
         System.out.println("--- WARNING: NOT ALL TASKS COULD BE SCHEDULED ---");
         System.out.println("The following tasks could not fit in your schedule:");
         for (Task task : tasks) {
-            double hours = task.getDurationInSlots() / 2.0;
+            double hours = grid.minuteOfDay(task.getDurationInSlots()) / 60.0;
             System.out.printf("- %s (Required: %.1f hours)%n", task.getName(), hours);
         }
     }
@@ -0,0 +1,43 @@
+package com.example;
+
+/**
+ * One finished day of a streamed timetable (see {@link SchedulerService#streamTimetable}).
+ * Holds its own copy of the day's slots, so it stays valid after the generator has
+ * moved on and released the day.
+ */
+public final class ScheduledDay {
+    private final java.time.LocalDate date;
+    private final int dayIndex;
+    private final int[] slotIds;
+    private final ActivityRegistry registry;
+    private final SlotGrid grid;
+
+    ScheduledDay(java.time.LocalDate date, int dayIndex, int[] slotIds, ActivityRegistry registry, SlotGrid grid) {
+        this.date = date;
+        this.dayIndex = dayIndex;
+        this.slotIds = slotIds;
+        this.registry = registry;
+        this.grid = grid;
+    }
+
+    public java.time.LocalDate getDate() {
+        return date;
+    }
+
+    /** Position of the day in the generated range, 0 for the start date. */
+    public int getDayIndex() {
+        return dayIndex;
+    }
+
+    public SlotGrid getSlotGrid() {
+        return grid;
+    }
+
+    public int getSlotCount() {
+        return slotIds.length;
+    }
+
+    public Activity getActivity(int slot) {
+        return registry.get(slotIds[slot]);
+    }
+}
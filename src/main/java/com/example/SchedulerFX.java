@@ -8,6 +8,7 @@ import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
 import javafx.beans.property.BooleanProperty;
+import javafx.concurrent.Service;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -21,6 +22,7 @@ import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.Spinner;
 import javafx.scene.control.TextField;
@@ -48,6 +50,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.LinkedHashSet;
 import java.time.temporal.ChronoUnit;
 
@@ -57,6 +60,7 @@ import java.time.temporal.ChronoUnit;
 public class SchedulerFX extends Application {
 
     private final SchedulerViewModel viewModel = new SchedulerViewModel();
+    private final GenerationService generationService = new GenerationService();
 
     private BorderPane root;
 
@@ -68,6 +72,7 @@ public class SchedulerFX extends Application {
     private Spinner<Integer> workDurationSpinner;
     private DatePicker endDatePicker;
     private Label generatorStatusLabel;
+    private ProgressBar generatorProgressBar;
 
     // Task inputs
     private TextField taskNameField;
@@ -278,11 +283,26 @@ public class SchedulerFX extends Application {
 
         Button generateBtn = createPrimaryButton("🚀 Generate Timetable");
         generateBtn.setOnAction(e -> handleGenerateTimetable());
+        generateBtn.disableProperty().bind(generationService.runningProperty());
+
+        // Progress and cancel only take up room while a generation runs
+        generatorProgressBar = new ProgressBar();
+        generatorProgressBar.setMaxWidth(Double.MAX_VALUE);
+        generatorProgressBar.progressProperty().bind(generationService.progressProperty());
+        generatorProgressBar.visibleProperty().bind(generationService.runningProperty());
+        generatorProgressBar.managedProperty().bind(generationService.runningProperty());
+        bindDarkModeClass(generatorProgressBar);
+
+        Button cancelGenerateBtn = createSecondaryButton("✖ Cancel");
+        cancelGenerateBtn.setOnAction(e -> generationService.cancel());
+        cancelGenerateBtn.visibleProperty().bind(generationService.runningProperty());
+        cancelGenerateBtn.managedProperty().bind(generationService.runningProperty());
 
     Button landingBackBtn = createSecondaryButton("⬅ Back");
     landingBackBtn.setOnAction(e -> showLandingView());
 
-    VBox bottomSection = new VBox(12, endDateLabel, endDatePicker, generateBtn, generatorStatusLabel, landingBackBtn);
+    VBox bottomSection = new VBox(12, endDateLabel, endDatePicker, generateBtn, generatorProgressBar,
+            cancelGenerateBtn, generatorStatusLabel, landingBackBtn);
         bottomSection.setAlignment(Pos.BOTTOM_LEFT);
         bottomSection.getChildren().forEach(this::bindDarkModeClass);
 
@@ -388,7 +408,7 @@ public class SchedulerFX extends Application {
         bindDarkModeClass(workHourSpinner);
 
         workMinuteBox = new ComboBox<>();
-        workMinuteBox.getItems().addAll("00", "15", "30", "45");
+        workMinuteBox.getItems().addAll(minuteChoices());
         workMinuteBox.setValue("00");
         bindDarkModeClass(workMinuteBox);
 
@@ -432,7 +452,7 @@ public class SchedulerFX extends Application {
         bindDarkModeClass(taskHourSpinner);
 
         taskMinuteBox = new ComboBox<>();
-        taskMinuteBox.getItems().addAll("00", "15", "30", "45");
+        taskMinuteBox.getItems().addAll(minuteChoices());
         taskMinuteBox.setValue("00");
         bindDarkModeClass(taskMinuteBox);
 
@@ -463,6 +483,8 @@ public class SchedulerFX extends Application {
 
     Button addTaskBtn = createPrimaryButton("Add Task");
     addTaskBtn.setOnAction(e -> handleAddTask());
+    // Edits wait for a running generation, which replaces the schedule they would patch
+    addTaskBtn.disableProperty().bind(generationService.runningProperty());
 
         taskStatusLabel = new Label();
         taskStatusLabel.getStyleClass().add("status-label");
@@ -511,7 +533,7 @@ public class SchedulerFX extends Application {
         bindDarkModeClass(eventHourSpinner);
 
         eventMinuteBox = new ComboBox<>();
-        eventMinuteBox.getItems().addAll("00", "15", "30", "45");
+        eventMinuteBox.getItems().addAll(minuteChoices());
         eventMinuteBox.setValue("00");
         bindDarkModeClass(eventMinuteBox);
 
@@ -525,6 +547,7 @@ public class SchedulerFX extends Application {
 
         Button addEventBtn = createPrimaryButton("Add Event");
         addEventBtn.setOnAction(e -> handleAddEvent());
+        addEventBtn.disableProperty().bind(generationService.runningProperty());
 
         eventStatusLabel = new Label();
         eventStatusLabel.getStyleClass().add("status-label");
@@ -567,9 +590,9 @@ public class SchedulerFX extends Application {
 
         int durationHours = taskHourSpinner.getValue();
         int durationMinutes = Integer.parseInt(taskMinuteBox.getValue());
-        int durationSlots = durationHours * 4 + durationMinutes / 15;
+        int durationSlots = viewModel.getSlotGrid().slotsFor(durationHours, durationMinutes);
         if (durationSlots == 0) {
-            durationSlots = 1; // enforce minimum 15 minutes
+            durationSlots = 1; // enforce a minimum of one slot
         }
 
         List<Integer> selectedDays = new ArrayList<>();
@@ -584,15 +607,17 @@ public class SchedulerFX extends Application {
                 ? Objects.toString(selectedToggle.getUserData(), "any")
                 : "any";
 
+        boolean scheduled;
         if (selectedDays.isEmpty()) {
-            viewModel.getTasks().add(new Task(name, durationSlots, null, preferredTime));
+            scheduled = viewModel.addTask(new Task(name, durationSlots, null, preferredTime));
         } else {
+            scheduled = false;
             for (Integer day : selectedDays) {
-                viewModel.getTasks().add(new Task(name, durationSlots, day, preferredTime));
+                scheduled |= viewModel.addTask(new Task(name, durationSlots, day, preferredTime));
             }
         }
 
-        taskStatusLabel.setText("✅ Task added");
+        taskStatusLabel.setText(scheduled ? "✅ Task added to the timetable" : "✅ Task added");
         taskNameField.clear();
         taskHourSpinner.getValueFactory().setValue(0);
         taskMinuteBox.setValue("30");
@@ -616,7 +641,7 @@ public class SchedulerFX extends Application {
 
         int hour = eventHourSpinner.getValue();
         String minute = eventMinuteBox.getValue();
-        int slot = hour * 4 + Integer.parseInt(minute) / 15;
+        int slot = viewModel.getSlotGrid().slotAt(hour, Integer.parseInt(minute));
         int durationHours = eventDurationSpinner.getValue();
         
         // Validate max 5 days (120 hours)
@@ -625,7 +650,7 @@ public class SchedulerFX extends Application {
             return;
         }
         
-        int durationSlots = durationHours * 4;
+        int durationSlots = viewModel.getSlotGrid().slotsFor(durationHours, 0);
 
         viewModel.getEvents().add(new Event(name, durationSlots, date, slot));
         eventStatusLabel.setText("🎉 Event added");
@@ -638,8 +663,6 @@ public class SchedulerFX extends Application {
     }
 
     private void handleGenerateTimetable() {
-        generatorStatusLabel.setText("Generating timetable...");
-
         LocalDate today = LocalDate.now();
         LocalDate end = endDatePicker.getValue();
         if (end == null || end.isBefore(today)) {
@@ -654,39 +677,138 @@ public class SchedulerFX extends Application {
             }
         }
 
-        int workStartSlot = workHourSpinner.getValue() * 4
-                + Integer.parseInt(workMinuteBox.getValue()) / 15;
-        int workDurationSlots = workDurationSpinner.getValue() * 4;
-        int sleepDurationSlots = sleepDurationSpinner.getValue() * 4;
-
-        new Thread(() -> {
-            boolean success = viewModel.generateAndPersistSchedule(
-                    workdays,
-                    workStartSlot,
-                    workDurationSlots,
-                    sleepDurationSlots,
-                    today,
-                    end
-            );
-
-            Platform.runLater(() -> {
-                if (success) {
-                    generatorStatusLabel.setText("✅ Timetable created!");
-                    viewModel.resetComposerState();
-                    taskStatusLabel.setText("");
-                    eventStatusLabel.setText("");
-                    showCalendarView();
-                } else {
-                    generatorStatusLabel.setText("❌ Could not generate timetable. Check your inputs.");
+        SlotGrid grid = viewModel.getSlotGrid();
+        int workStartSlot = grid.slotAt(workHourSpinner.getValue(), Integer.parseInt(workMinuteBox.getValue()));
+        int workDurationSlots = grid.slotsFor(workDurationSpinner.getValue(), 0);
+        int sleepDurationSlots = grid.slotsFor(sleepDurationSpinner.getValue(), 0);
+
+        generationService.configure(workdays, workStartSlot, workDurationSlots, sleepDurationSlots,
+                new ArrayList<>(viewModel.getTasks()), new ArrayList<>(viewModel.getEvents()), today, end);
+        generationService.setOnSucceeded(e -> {
+            generatorStatusLabel.textProperty().unbind();
+            if (generationService.getValue()) {
+                generatorStatusLabel.setText("✅ Timetable created!");
+                taskStatusLabel.setText("");
+                eventStatusLabel.setText("");
+                showCalendarView();
+            } else {
+                generatorStatusLabel.setText("❌ Could not generate timetable. Check your inputs.");
+            }
+        });
+        generationService.setOnCancelled(e -> {
+            generatorStatusLabel.textProperty().unbind();
+            generatorStatusLabel.setText("Generation cancelled.");
+        });
+        generationService.setOnFailed(e -> {
+            generatorStatusLabel.textProperty().unbind();
+            generatorStatusLabel.setText(generationService.getException() instanceof CancellationException
+                    ? "⏱ Generation took too long and was stopped."
+                    : "❌ Could not generate timetable. Check your inputs.");
+        });
+        generatorStatusLabel.textProperty().bind(generationService.messageProperty());
+        generationService.restart();
+    }
+
+    /**
+     * Runs the generation off the FX thread under a {@link GenerationControl}, turning its
+     * phase reports into the service's progress and message and its cancel into the
+     * control's. The phases share the bar by rough weight; tasks usually dominate. Every
+     * range takes the regular path, whose cached result is what the in-place edits need.
+     */
+    private final class GenerationService extends Service<Boolean> {
+        // Generations that have not finished after this long are stopped
+        private static final long DEADLINE_MINUTES = 5;
+
+        private List<Integer> workdays;
+        private int workStartSlot;
+        private int workDurationSlots;
+        private int sleepDurationSlots;
+        // Copied on the FX thread; the lists themselves belong to it
+        private List<Task> tasks;
+        private List<Event> events;
+        private LocalDate startDate;
+        private LocalDate endDate;
+
+        void configure(List<Integer> workdays, int workStartSlot, int workDurationSlots,
+                       int sleepDurationSlots, List<Task> tasks, List<Event> events,
+                       LocalDate startDate, LocalDate endDate) {
+            this.workdays = workdays;
+            this.workStartSlot = workStartSlot;
+            this.workDurationSlots = workDurationSlots;
+            this.sleepDurationSlots = sleepDurationSlots;
+            this.tasks = tasks;
+            this.events = events;
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        @Override
+        protected javafx.concurrent.Task<Boolean> createTask() {
+            // Captured now, so a later configure() cannot change a running generation
+            List<Integer> workdays = this.workdays;
+            int workStartSlot = this.workStartSlot;
+            int workDurationSlots = this.workDurationSlots;
+            int sleepDurationSlots = this.sleepDurationSlots;
+            List<Task> tasks = this.tasks;
+            List<Event> events = this.events;
+            LocalDate startDate = this.startDate;
+            LocalDate endDate = this.endDate;
+            GenerationControl control = new GenerationControl();
+            control.setDeadline(java.time.Instant.now().plus(java.time.Duration.ofMinutes(DEADLINE_MINUTES)));
+
+            return new javafx.concurrent.Task<>() {
+                {
+                    control.setProgressListener((phase, done, total) -> {
+                        double within = total == 0 ? 1 : (double) done / total;
+                        switch (phase) {
+                            case EVENTS:
+                                updateProgress(0.1 * within, 1);
+                                updateMessage("Placing events (" + done + "/" + total + ")...");
+                                break;
+                            case SLEEP_AND_WORK:
+                                updateProgress(0.1 + 0.2 * within, 1);
+                                updateMessage("Laying out sleep and work (" + done + "/" + total + " days)...");
+                                break;
+                            case TASKS:
+                                updateProgress(0.3 + 0.7 * within, 1);
+                                updateMessage("Placing tasks (" + done + "/" + total + ")...");
+                                break;
+                            case FALLBACK:
+                                updateMessage(done + " task(s) needed a fallback day. Saving...");
+                                break;
+                        }
+                    });
+                }
+
+                @Override
+                protected Boolean call() {
+                    updateMessage("Generating timetable...");
+                    return viewModel.generateAndPersistSchedule(workdays, workStartSlot, workDurationSlots,
+                            sleepDurationSlots, tasks, events, startDate, endDate, control);
+                }
+
+                @Override
+                public boolean cancel(boolean mayInterruptIfRunning) {
+                    control.cancel();
+                    return super.cancel(mayInterruptIfRunning);
                 }
-            });
-        }, "scheduler-generator").start();
+            };
+        }
     }
 
     // ------------------------------------------------------------------
     // Helpers
     // ------------------------------------------------------------------
 
+    // Minute choices for start times and durations, one per slot boundary within an hour
+    private List<String> minuteChoices() {
+        List<String> choices = new ArrayList<>();
+        for (int minute = 0; minute < 60; minute += viewModel.getSlotGrid().getMinutesPerSlot()) {
+            choices.add(String.format("%02d", minute));
+        }
+        return choices;
+    }
+
     private Button createPrimaryButton(String text) {
         Button button = new Button(text);
         button.getStyleClass().add("primary-button");
@@ -884,6 +1006,7 @@ public class SchedulerFX extends Application {
 
             {
                 container.setAlignment(Pos.CENTER_LEFT);
+                removeButton.disableProperty().bind(generationService.runningProperty());
                 bindDarkModeClass(container);
                 bindDarkModeClass(title);
             }
@@ -901,7 +1024,7 @@ public class SchedulerFX extends Application {
                     String startLabel = "00:30";
                     String endLabel = String.format("%02d:%02d", endTotalMinutes / 60, endTotalMinutes % 60);
                     title.setText(item.getName() + "  (" + startLabel + " - " + endLabel + ")");
-                    removeButton.setOnAction(e -> viewModel.getTasks().remove(item));
+                    removeButton.setOnAction(e -> viewModel.removeTask(item));
                     setGraphic(container);
                 }
             }
@@ -914,12 +1037,13 @@ public class SchedulerFX extends Application {
         listView.setPlaceholder(createEmptyState("No events yet."));
         bindDarkModeClass(listView);
         listView.setCellFactory(lv -> new ListCell<>() {
-            private final ActivityCard card = new ActivityCard();
+            private final ActivityCard card = new ActivityCard(viewModel.getSlotGrid());
             private final Button removeButton = createSecondaryButton("Remove");
             private final HBox container = new HBox(12, card, removeButton);
 
             {
                 container.setAlignment(Pos.CENTER_LEFT);
+                removeButton.disableProperty().bind(generationService.runningProperty());
                 bindDarkModeClass(container);
                 card.bindDarkMode(viewModel.darkModeProperty());
             }
@@ -931,7 +1055,7 @@ public class SchedulerFX extends Application {
                     setGraphic(null);
                 } else {
                     card.setActivity(item);
-                    removeButton.setOnAction(e -> viewModel.getEvents().remove(item));
+                    removeButton.setOnAction(e -> viewModel.removeEvent(item));
                     setGraphic(container);
                 }
             }
@@ -206,22 +206,20 @@ public class SchedulerGUI extends JFrame {
         }
         StringBuilder sb = new StringBuilder();
         sb.append("Timetable for ").append(date).append(":\n");
-        // Group consecutive slots with the same activity
+        // Group adjacent spans with the same activity
         int n = entries.size();
         int i = 0;
         while (i < n) {
             String activity = entries.get(i).activityName;
             int startSlot = entries.get(i).slot;
             int j = i + 1;
-            while (j < n && entries.get(j).activityName.equals(activity) && entries.get(j).slot == entries.get(j-1).slot + 1) {
+            while (j < n && entries.get(j).activityName.equals(activity) && entries.get(j).slot == entries.get(j-1).endSlot) {
                 j++;
             }
-            int endSlot = entries.get(j-1).slot;
-            int startHour = startSlot / 4;
-            int startMin = (startSlot % 4) * 15;
-            int endHour = (endSlot + 1) / 4;
-            int endMin = ((endSlot + 1) % 4) * 15;
-            sb.append(String.format("%02d:%02d-%02d:%02d %s\n", startHour, startMin, endHour, endMin, activity));
+            int endSlot = entries.get(j-1).endSlot;
+            SlotGrid grid = entries.get(i).slotGrid;
+            sb.append(grid.formatSlot(startSlot)).append("-").append(grid.formatSlot(endSlot))
+                    .append(" ").append(activity).append("\n");
             i = j;
         }
         outputArea.setText(sb.toString());
@@ -255,9 +253,11 @@ public class SchedulerGUI extends JFrame {
             }
             int workHour = (Integer) workHourSpinner.getValue();
             int workMinute = Integer.parseInt((String) workMinuteBox.getSelectedItem());
-            int workStartSlot = workHour * 4 + workMinute / 15;
-            int workDurationSlots = ((Integer) workDurationSpinner.getValue()) * 4;
-            int sleepDurationSlots = ((Integer) sleepDurationSpinner.getValue()) * 4;
+            SchedulerService scheduler = new SchedulerService();
+            SlotGrid grid = scheduler.getSlotGrid();
+            int workStartSlot = grid.slotAt(workHour, workMinute);
+            int workDurationSlots = grid.slotsFor((Integer) workDurationSpinner.getValue(), 0);
+            int sleepDurationSlots = grid.slotsFor((Integer) sleepDurationSpinner.getValue(), 0);
 
             // Parse tasks (support recurring on multiple days)
             java.util.List<Task> tasks = new java.util.ArrayList<>();
@@ -267,7 +267,7 @@ public class SchedulerGUI extends JFrame {
                 if (parts.length >= 2) {
                     String name = parts[0].trim();
                     double dur = Double.parseDouble(parts[1].trim());
-                    int slots = (int) Math.round(dur * 2);
+                    int slots = grid.slotsFor(0, (int) Math.round(dur * 60));
                     if (parts.length > 2) {
                         for (int i = 2; i < parts.length; i++) {
                             try {
@@ -292,9 +292,9 @@ public class SchedulerGUI extends JFrame {
                     java.time.LocalDate eventDate = java.time.LocalDate.parse(parts[1].trim()); // yyyy-MM-dd
                     int hour = Integer.parseInt(parts[2].trim());
                     int minute = Integer.parseInt(parts[3].trim());
-                    int startSlot = hour * 4 + minute / 15;
+                    int startSlot = grid.slotAt(hour, minute);
                     double dur = Double.parseDouble(parts[4].trim());
-                    int slots = (int) Math.round(dur * 4);
+                    int slots = grid.slotsFor(0, (int) Math.round(dur * 60));
                     events.add(new Event(name, slots, eventDate, startSlot));
                 }
             }
@@ -308,7 +308,6 @@ public class SchedulerGUI extends JFrame {
             int daysSinceMonday = (dow.getValue() - java.time.DayOfWeek.MONDAY.getValue() + 7) % 7;
             java.time.LocalDate thisMonday = today.minusDays(daysSinceMonday);
 
-            SchedulerService scheduler = new SchedulerService();
             ScheduleResult result = scheduler.generateTimetable(
                 workdays, workStartSlot, workDurationSlots, sleepDurationSlots, tasks, events, thisMonday, endDate
             );
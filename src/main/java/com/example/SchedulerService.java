@@ -1,8 +1,87 @@
 package com.example;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 public class SchedulerService {
+    private final GapAllocator.Policy placementPolicy;
+    private boolean sparseStorage;
+    private int parallelism = 1;
+    private PlacementStrategy placementStrategy = new GreedyPlacement();
+    private SlotGrid slotGrid = SlotGrid.QUARTER_HOUR;
+
+    public SchedulerService() {
+        this(GapAllocator.Policy.FIRST_FIT);
+    }
+
+    // BEST_FIT packs tasks into the tightest gap of a day and fragments it less than FIRST_FIT
+    public SchedulerService(GapAllocator.Policy placementPolicy) {
+        this.placementPolicy = placementPolicy;
+    }
+
+    /**
+     * When enabled, generated timetables only allocate the days that differ from the
+     * recurring sleep/work template (see {@link SparseTimetable}). Meant for multi-year
+     * horizons where most days never receive a task.
+     */
+    public void setSparseStorage(boolean sparseStorage) {
+        this.sparseStorage = sparseStorage;
+    }
+
+    public boolean isSparseStorage() {
+        return sparseStorage;
+    }
+
+    /**
+     * Number of worker threads used by {@link #generateTimetable}. With more than one,
+     * the horizon is split into week partitions that are filled on a ForkJoinPool (see
+     * {@link PartitionedScheduler}); the result is identical to the sequential run.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * How tasks are placed once events, sleep and work are in. The default greedy pass is
+     * the only one {@link #setParallelism} spreads over week partitions; other strategies
+     * run on the calling thread after the parallel fixed layers.
+     */
+    public void setPlacementStrategy(PlacementStrategy placementStrategy) {
+        this.placementStrategy = Objects.requireNonNull(placementStrategy);
+    }
+
+    public GapAllocator.Policy getPlacementPolicy() {
+        return placementPolicy;
+    }
+
+    public PlacementStrategy getPlacementStrategy() {
+        return placementStrategy;
+    }
+
+    /**
+     * Resolution of generated timetables. Every slot number and duration handed in (work
+     * start, sleep and work lengths, task and event slots) is read on this grid.
+     */
+    public void setSlotGrid(SlotGrid slotGrid) {
+        this.slotGrid = Objects.requireNonNull(slotGrid);
+    }
+
+    public SlotGrid getSlotGrid() {
+        return slotGrid;
+    }
+
     public ScheduleResult generateTimetable(
             List<Integer> workdays, int workStartSlot, int workDurationSlots,
             int sleepDurationSlots,
@@ -10,176 +89,545 @@ public class SchedulerService {
             List<Event> events,
             java.time.LocalDate startDate,
             java.time.LocalDate endDate) {
-        int days = (int) java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate) + 1;
-        Timetable timetable = new Timetable(days);
-        List<Task> unscheduledTasks = new ArrayList<>();
+        return generateTimetable(workdays, workStartSlot, workDurationSlots, sleepDurationSlots,
+                tasks, events, startDate, endDate, new GenerationControl());
+    }
 
+    /**
+     * Same as above, under a {@link GenerationControl} that can cancel the run, bound it by
+     * a deadline and follow its phases. Throws {@link java.util.concurrent.CancellationException}
+     * when stopped. With parallelism the fixed layers are only checked between phases.
+     */
+    public ScheduleResult generateTimetable(
+            List<Integer> workdays, int workStartSlot, int workDurationSlots,
+            int sleepDurationSlots,
+            List<Task> tasks,
+            List<Event> events,
+            java.time.LocalDate startDate,
+            java.time.LocalDate endDate,
+            GenerationControl control) {
+        return generate(workdays, workStartSlot, workDurationSlots, sleepDurationSlots, tasks, events,
+                startDate, endDate, control, parallelism);
+    }
 
-        // 0. Place events (highest priority, always overwrite)
-        for (Event event : events) {
-            java.time.LocalDate eventDate = event.getEventDate();
-            if (!eventDate.isBefore(startDate) && !eventDate.isAfter(endDate)) {
-                int dayIdx = (int) java.time.temporal.ChronoUnit.DAYS.between(startDate, eventDate);
-                timetable.placeAt(event, dayIdx, event.getStartSlot(), true); // force overwrite
-            }
+    /**
+     * Same as the plain call, plus tasks and events that repeat. Only the occurrences
+     * between {@code startDate} and {@code endDate} are expanded, each recurring task and
+     * event in turn after the one-off ones of its kind.
+     */
+    public ScheduleResult generateTimetable(
+            List<Integer> workdays, int workStartSlot, int workDurationSlots,
+            int sleepDurationSlots,
+            List<Task> tasks,
+            List<RecurringTask> recurringTasks,
+            List<Event> events,
+            List<RecurringEvent> recurringEvents,
+            java.time.LocalDate startDate,
+            java.time.LocalDate endDate) {
+        List<Task> allTasks = new ArrayList<>(tasks);
+        for (RecurringTask recurring : recurringTasks) {
+            recurring.expand(startDate, endDate).forEachRemaining(allTasks::add);
         }
+        List<Event> allEvents = new ArrayList<>(events);
+        for (RecurringEvent recurring : recurringEvents) {
+            recurring.expand(startDate, endDate).forEachRemaining(allEvents::add);
+        }
+        return generateTimetable(workdays, workStartSlot, workDurationSlots, sleepDurationSlots,
+                allTasks, allEvents, startDate, endDate);
+    }
 
-        // 1. Place sleep (next priority, only if not occupied by event)
-        for (int day = 0; day < days; day++) {
-            Activity[] slots = timetable.getSlots()[day];
-            int halfSleep = sleepDurationSlots / 2;
-            // Before midnight: slots 80-95 (20:00-00:00) - 15-min slots
-            int sleepPlaced = 0;
-            for (int s = 80; s < 96 && sleepPlaced < halfSleep; s++) {
-                if (slots[s] == null) {
-                    slots[s] = new FixedActivity("Sleep", 1);
-                    sleepPlaced++;
-                }
+    /** Generates the scenario's timetable; same as the call with its inputs spelled out. */
+    public ScheduleResult generateTimetable(ScheduleScenario scenario) {
+        return generateTimetable(scenario.getWorkdays(), scenario.getWorkStartSlot(), scenario.getWorkDurationSlots(),
+                scenario.getSleepDurationSlots(), scenario.getTasks(), scenario.getEvents(),
+                scenario.getStartDate(), scenario.getEndDate());
+    }
+
+    /**
+     * Generates every scenario, up to {@code maxConcurrent} at a time, and returns their
+     * summaries in scenario order. Each timetable is dropped once summarized, so memory
+     * stays at {@code maxConcurrent} timetables however many variants are compared; get
+     * the chosen one with {@link #generateTimetable(ScheduleScenario)}, which only matches
+     * its summary exactly under a strategy without a time budget. Scenarios run
+     * sequentially inside, whatever the parallelism, since they already run side by side.
+     * The first scenario that fails fails the whole batch.
+     */
+    public List<ScenarioSummary> simulate(List<ScheduleScenario> scenarios, int maxConcurrent) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("At least one scenario must run at a time, got " + maxConcurrent);
+        }
+        if (scenarios.isEmpty()) {
+            return new ArrayList<>();
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxConcurrent, scenarios.size()));
+        List<GenerationControl> controls = new ArrayList<>();
+        try {
+            List<Future<ScenarioSummary>> pending = new ArrayList<>();
+            for (ScheduleScenario scenario : scenarios) {
+                GenerationControl control = new GenerationControl();
+                controls.add(control);
+                pending.add(executor.submit(() -> ScenarioSummary.of(scenario, generate(
+                        scenario.getWorkdays(), scenario.getWorkStartSlot(), scenario.getWorkDurationSlots(),
+                        scenario.getSleepDurationSlots(), scenario.getTasks(), scenario.getEvents(),
+                        scenario.getStartDate(), scenario.getEndDate(), control, 1))));
             }
-            // After midnight: slots 0-15 (00:00-04:00) - 15-min slots
-            for (int s = 0; s < 16 && sleepPlaced < sleepDurationSlots; s++) {
-                if (slots[s] == null) {
-                    slots[s] = new FixedActivity("Sleep", 1);
-                    sleepPlaced++;
-                }
+            List<ScenarioSummary> summaries = new ArrayList<>();
+            for (Future<ScenarioSummary> summary : pending) {
+                summaries.add(summary.get());
+            }
+            return summaries;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
+            throw new IllegalStateException("Scenario generation failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while simulating scenarios");
+        } finally {
+            // After a failure, stop the scenarios still running rather than letting them finish unseen
+            for (GenerationControl control : controls) {
+                control.cancel();
+            }
+            executor.shutdown();
         }
+    }
 
-        // 2. Place work (repeat every week, only if not occupied by event or sleep)
-        for (int day = 0; day < days; day++) {
-            java.time.LocalDate date = startDate.plusDays(day);
-            int weekday = date.getDayOfWeek().getValue(); // 1=Mon, 7=Sun
-            if (workdays.contains(weekday - 1)) {
-                Activity[] slots = timetable.getSlots()[day];
-                boolean canPlace = true;
-                for (int i = 0; i < workDurationSlots; i++) {
-                    int slotIdx = workStartSlot + i;
-                    if (slotIdx >= 96 || slots[slotIdx] != null) {
-                        canPlace = false;
-                        break;
-                    }
-                }
-                if (canPlace) {
-                    for (int i = 0; i < workDurationSlots; i++) {
-                        slots[workStartSlot + i] = new FixedActivity("Work", workDurationSlots);
-                    }
-                }
+    private ScheduleResult generate(
+            List<Integer> workdays, int workStartSlot, int workDurationSlots,
+            int sleepDurationSlots,
+            List<Task> tasks,
+            List<Event> events,
+            java.time.LocalDate startDate,
+            java.time.LocalDate endDate,
+            GenerationControl control,
+            int parallelism) {
+        Objects.requireNonNull(control);
+        int days = (int) java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        Timetable timetable = sparseStorage ? new SparseTimetable(days, slotGrid) : new Timetable(days, slotGrid);
+        // Weekday and workday lookups for every phase below, computed once
+        CalendarMetadata calendar = CalendarMetadata.build(startDate, days, workdays, slotGrid);
+        WeeklyTemplate template = WeeklyTemplate.compile(timetable.getRegistry(), calendar,
+                sleepDurationSlots, workStartSlot, workDurationSlots);
+
+        GapAllocator allocator = new GapAllocator(timetable, placementPolicy);
+        ScheduleContext context = new ScheduleContext(startDate, endDate, calendar, template, allocator, events);
+        // Overlaps are found up front; placement below still lets the later event win them
+        EventSweep eventSweep = new EventSweep(events, startDate, endDate, days, timetable.getSlotsPerDay());
+        List<EventConflict> eventConflicts = eventSweep.conflicts();
+
+        if (parallelism > 1 && days > PartitionedScheduler.DAYS_PER_PARTITION) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                PartitionedScheduler partitioned = new PartitionedScheduler(this, pool, timetable, calendar, allocator,
+                        control);
+                long phaseStart = System.nanoTime();
+                control.progress(GenerationControl.Phase.EVENTS, 0, events.size());
+                partitioned.placeEvents(eventSweep);
+                control.progress(GenerationControl.Phase.EVENTS, events.size(), events.size());
+                control.phaseFinished(GenerationControl.Phase.EVENTS, phaseStart);
+
+                phaseStart = System.nanoTime();
+                control.progress(GenerationControl.Phase.SLEEP_AND_WORK, 0, days);
+                applyTemplate(timetable, calendar, template, partitioned, control);
+                control.progress(GenerationControl.Phase.SLEEP_AND_WORK, days, days);
+                control.phaseFinished(GenerationControl.Phase.SLEEP_AND_WORK, phaseStart);
+
+                phaseStart = System.nanoTime();
+                List<Task> unscheduledTasks = placementStrategy instanceof GreedyPlacement
+                        ? partitioned.placeTasks(tasks)
+                        : new ArrayList<>(placementStrategy.placeTasks(
+                                new PlacementContext(this, timetable, context, control), tasks));
+                finishTaskPhase(control, tasks.size(), phaseStart);
+                return new ScheduleResult(timetable, unscheduledTasks, context, eventConflicts);
+            } finally {
+                pool.shutdown();
             }
         }
 
+        // 0. Place events (highest priority, always overwrite), one range fill per event and day
+        long phaseStart = System.nanoTime();
+        eventSweep.fill(timetable, 0, days, control);
+        eventSweep.markEventDays(calendar);
+        control.progress(GenerationControl.Phase.EVENTS, events.size(), events.size());
+        control.phaseFinished(GenerationControl.Phase.EVENTS, phaseStart);
+
+        // 1-2. Place sleep and work (next priority, only where no event is)
+        phaseStart = System.nanoTime();
+        applyTemplate(timetable, calendar, template, null, control);
+        control.phaseFinished(GenerationControl.Phase.SLEEP_AND_WORK, phaseStart);
+
         // 3. Place tasks (with intelligent fallback and conflict resolution)
-        for (Task task : tasks) {
-            boolean taskPlaced = false;
-            
-            // Try placing task on every applicable day (respecting targetDay and recurring weekly)
-            for (int day = 0; day < days && !taskPlaced; day++) {
-                java.time.LocalDate date = startDate.plusDays(day);
-                int weekday = date.getDayOfWeek().getValue(); // 1=Mon, 7=Sun
-                if (task.getTargetDay() != null && weekday - 1 != task.getTargetDay()) continue;
-
-                // Preferred time window slots (15-minute intervals, 96 slots per day)
-                int morningStart = 0, morningEnd = 47;   // 00:00 to 12:00 (slot 0-47)
-                int eveningStart = 64, eveningEnd = 95;  // 16:00 to 24:00 (slot 64-95)
-
-                // Try preferred window first
-                String pref = task.getPreferredTime();
-                if ("morning".equals(pref)) {
-                    taskPlaced = tryPlaceTaskInWindow(timetable.getSlots()[day], task, morningStart, morningEnd);
-                } else if ("evening".equals(pref)) {
-                    taskPlaced = tryPlaceTaskInWindow(timetable.getSlots()[day], task, eveningStart, eveningEnd);
-                }
+        // Copied so the incremental edits can update it whatever list the strategy returns
+        phaseStart = System.nanoTime();
+        List<Task> unscheduledTasks = new ArrayList<>(
+                placementStrategy.placeTasks(new PlacementContext(this, timetable, context, control), tasks));
+        finishTaskPhase(control, tasks.size(), phaseStart);
+        return new ScheduleResult(timetable, unscheduledTasks, context, eventConflicts);
+    }
 
-                // If not placed, try anywhere on the same day
-                if (!taskPlaced) {
-                    taskPlaced = tryPlaceTaskInWindow(timetable.getSlots()[day], task, 0, 95);
-                }
+    private static void finishTaskPhase(GenerationControl control, int tasks, long phaseStart) {
+        control.progress(GenerationControl.Phase.TASKS, tasks, tasks);
+        control.phaseFinished(GenerationControl.Phase.TASKS, phaseStart);
+        control.fallbackFinished();
+    }
+
+    /**
+     * Same inputs as {@link #generateTimetable}, but the days are published one at a time
+     * as soon as they are final, while later days are still being generated. At most
+     * about {@code window} finished days wait for the consumer; past that the generator
+     * waits too. Placements match {@link #generateTimetable} except that a day-pinned task
+     * that fits none of its weekdays is not moved to a fallback day (those may already
+     * be published) and stays unscheduled. Always sequential, whatever the parallelism.
+     */
+    public ScheduleStream streamTimetable(
+            List<Integer> workdays, int workStartSlot, int workDurationSlots,
+            int sleepDurationSlots,
+            List<Task> tasks,
+            List<Event> events,
+            java.time.LocalDate startDate,
+            java.time.LocalDate endDate,
+            int window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("Window must be at least 1 day, got " + window);
+        }
+        return new ScheduleStream(new StreamingScheduler(this, placementPolicy, slotGrid, workdays, workStartSlot,
+                workDurationSlots, sleepDurationSlots, tasks, events, startDate, endDate), window);
+    }
+
+    // Greedy placement of one task; returns the day it landed on, or -1
+    int placeTask(GapAllocator allocator, CalendarMetadata calendar, Timetable timetable, Task task) {
+        return placeTask(allocator, calendar, timetable, task, null);
+    }
+
+    // As above, timing the fallback search into the control when there is one
+    int placeTask(GapAllocator allocator, CalendarMetadata calendar, Timetable timetable, Task task,
+                  GenerationControl control) {
+        int duration = task.getDurationInSlots();
+
+        // No day has a big enough gap left: unschedulable, skip the scans and the fallback
+        if (timetable.firstDayWithRoom(0, duration) < 0) {
+            return -1;
+        }
+
+        // Try placing task on every applicable day (respecting targetDay and recurring weekly),
+        // jumping straight over days whose largest free block is too small
+        for (int day = timetable.firstDayWithRoom(0, duration); day >= 0;
+                day = timetable.firstDayWithRoom(day + 1, duration)) {
+            if (!calendar.isOwnDay(task, day)) continue;
+            if (tryPlaceTaskOnDay(allocator, calendar, day, task) >= 0) {
+                return day;
             }
+        }
+        if (task.getDate() != null) {
+            return -1;
+        }
+
+        // If task was not placed after scanning applicable days, apply fallback logic
+        // Strategy: look for next 3 days, then nearest non-work day
+        long fallbackStart = System.nanoTime();
+        int day = tryPlaceTaskWithFallback(allocator, calendar, timetable, task, timetable.getDays());
+        if (control != null) {
+            control.fallbackUsed(fallbackStart);
+        }
+        return day;
+    }
+
+    // Day index of the event inside [startDate, endDate], or -1 when it falls outside
+    static int dayIndexOf(Event event, java.time.LocalDate startDate, java.time.LocalDate endDate) {
+        java.time.LocalDate eventDate = event.getEventDate();
+        if (eventDate.isBefore(startDate) || eventDate.isAfter(endDate)) {
+            return -1;
+        }
+        return (int) java.time.temporal.ChronoUnit.DAYS.between(startDate, eventDate);
+    }
+
+    /**
+     * Places one more task into a timetable built by {@link #generateTimetable}, the same
+     * way the generation loop places each task. Returns the indices of the days that
+     * changed; when the task does not fit it joins the unscheduled list and none do.
+     */
+    public SortedSet<Integer> addTask(ScheduleResult result, Task task) {
+        ScheduleContext context = contextOf(result);
+        SortedSet<Integer> changed = new TreeSet<>();
+        int day = placeIndexed(context, result.getTimetable(), task);
+        if (day >= 0) {
+            changed.add(day);
+        } else {
+            result.getUnscheduledTasks().add(task);
+        }
+        return changed;
+    }
+
+    /**
+     * Takes a task out of the timetable (or off the unscheduled list) and offers the room it
+     * frees to the tasks that are still unscheduled. Returns the indices of the changed days.
+     */
+    public SortedSet<Integer> removeTask(ScheduleResult result, Task task) {
+        ScheduleContext context = contextOf(result);
+        Timetable timetable = result.getTimetable();
+        SortedSet<Integer> changed = new TreeSet<>();
+        if (result.getUnscheduledTasks().removeIf(t -> t == task)) {
+            return changed;
+        }
+        Integer day = context.taskDays(timetable).remove(task);
+        if (day == null) {
+            return changed;
+        }
+        // A task is always placed as one run inside a single day
+        int id = timetable.getRegistry().idOf(task);
+        int slot = 0;
+        while (timetable.getSlotId(day, slot) != id) {
+            slot++;
+        }
+        int end = slot;
+        while (end < timetable.getSlotsPerDay() && timetable.getSlotId(day, end) == id) {
+            end++;
+        }
+        timetable.fill(day, slot, end - slot, null);
+        timetable.getRegistry().release(task);
+        context.allocator.refresh(day);
+        context.calendar.resetFreeSlot(timetable, day);
+        changed.add(day);
+        retryUnscheduled(context, result, changed);
+        return changed;
+    }
 
-            // If task was not placed after scanning applicable days, apply fallback logic
-            if (!taskPlaced) {
-                // Strategy: look for next 3 days, then nearest non-work day
-                taskPlaced = tryPlaceTaskWithFallback(timetable, task, days, startDate, workdays);
+    /**
+     * Replaces {@code event} with {@code moved}, normally the same event at another date or
+     * start slot. Every day either one covers is laid out again from its events and the
+     * weekly template. Tasks on those days keep their slots where these are still free and
+     * are placed again otherwise. Returns the indices of the changed days.
+     */
+    public SortedSet<Integer> moveEvent(ScheduleResult result, Event event, Event moved) {
+        ScheduleContext context = contextOf(result);
+        Timetable timetable = result.getTimetable();
+        int index = -1;
+        for (int i = 0; i < context.events.size() && index < 0; i++) {
+            if (context.events.get(i) == event) index = i;
+        }
+        if (index < 0) {
+            throw new IllegalArgumentException("Event is not part of this schedule: " + event.getName());
+        }
+        SortedSet<Integer> changed = new TreeSet<>();
+        addCoveredDays(context, timetable, event, changed);
+        // Same list position, so it keeps its priority against overlapping events
+        context.events.set(index, moved);
+        addCoveredDays(context, timetable, moved, changed);
+        rebuildDays(context, result, changed);
+        if (moved != event) {
+            timetable.getRegistry().release(event);
+        }
+        return changed;
+    }
+
+    /**
+     * Takes an event out of the timetable and lays the days it covered out again, offering
+     * the freed room to unscheduled tasks. Returns the indices of the changed days; none
+     * when the event is not part of the schedule.
+     */
+    public SortedSet<Integer> removeEvent(ScheduleResult result, Event event) {
+        ScheduleContext context = contextOf(result);
+        SortedSet<Integer> changed = new TreeSet<>();
+        if (!context.events.removeIf(e -> e == event)) {
+            return changed;
+        }
+        addCoveredDays(context, result.getTimetable(), event, changed);
+        rebuildDays(context, result, changed);
+        result.getTimetable().getRegistry().release(event);
+        return changed;
+    }
+
+    // Rebuilds each day in changed from the current events, then places the tasks that lost their slots
+    private void rebuildDays(ScheduleContext context, ScheduleResult result, SortedSet<Integer> changed) {
+        Timetable timetable = result.getTimetable();
+        List<Task> displaced = new ArrayList<>();
+        for (int day : changed) {
+            rebuildDay(context, timetable, day, displaced);
+        }
+        for (Task task : displaced) {
+            int day = placeIndexed(context, timetable, task);
+            if (day >= 0) {
+                changed.add(day);
+            } else {
+                context.taskDays(timetable).remove(task);
+                result.getUnscheduledTasks().add(task);
             }
+        }
+        retryUnscheduled(context, result, changed);
+    }
+
+    // placeTask for the incremental edits, recording where the task went
+    private int placeIndexed(ScheduleContext context, Timetable timetable, Task task) {
+        // Built before placing, so the scan cannot already see the task
+        Map<Task, Integer> taskDays = context.taskDays(timetable);
+        int day = placeTask(context.allocator, context.calendar, timetable, task);
+        if (day >= 0) {
+            taskDays.put(task, day);
+        }
+        return day;
+    }
 
-            // Track unscheduled tasks
-            if (!taskPlaced) {
-                unscheduledTasks.add(task);
+    private static ScheduleContext contextOf(ScheduleResult result) {
+        if (result.getContext() == null) {
+            throw new IllegalArgumentException("Incremental edits need a result from generateTimetable");
+        }
+        return result.getContext();
+    }
+
+    // Days the event's slots land on, following the same walk and wrap as Timetable.placeAt
+    private static void addCoveredDays(ScheduleContext context, Timetable timetable, Event event, Set<Integer> out) {
+        int d = dayIndexOf(event, context.startDate, context.endDate);
+        if (d < 0) {
+            return;
+        }
+        int s = event.getStartSlot();
+        for (int i = 0; i < event.getDurationInSlots(); i++, s++) {
+            if (s < 0 || s >= timetable.getSlotsPerDay()) {
+                d = (d + 1) % timetable.getDays();
+                s = 0;
             }
+            out.add(d);
         }
-        return new ScheduleResult(timetable, unscheduledTasks);
     }
 
-    // Helper: Try to place task in a window of slots, returns true if placed
-    private boolean tryPlaceTaskInWindow(Activity[] slots, Task task, int start, int end) {
-        int currentBlock = 0;
-        int blockStart = -1;
-        for (int slot = start; slot <= end; slot++) {
-            if (slots[slot] == null) {
-                if (currentBlock == 0) blockStart = slot;
-                currentBlock++;
+    // Lays a day out again in generation order: its events, then sleep and work, then the
+    // tasks that were on it at their old slots. Tasks whose slots are gone go to displaced.
+    private void rebuildDay(ScheduleContext context, Timetable timetable, int day, List<Task> displaced) {
+        List<Task> tasks = new ArrayList<>();
+        List<Integer> starts = new ArrayList<>();
+        for (int slot = 0; slot < timetable.getSlotsPerDay(); slot++) {
+            Activity activity = timetable.getActivity(day, slot);
+            if (activity instanceof Task && (slot == 0 || timetable.getActivity(day, slot - 1) != activity)) {
+                tasks.add((Task) activity);
+                starts.add(slot);
+            }
+        }
+
+        timetable.fill(day, 0, timetable.getSlotsPerDay(), null);
+        for (Event event : context.events) {
+            int dayIdx = dayIndexOf(event, context.startDate, context.endDate);
+            if (dayIdx >= 0) {
+                timetable.placeAt(event, dayIdx, event.getStartSlot(), true, day, day + 1);
+            }
+        }
+        context.calendar.captureEvents(timetable, day);
+        context.template.applyTo(timetable, context.calendar, day);
+
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (timetable.isRangeFree(day, starts.get(i), task.getDurationInSlots())) {
+                timetable.fill(day, starts.get(i), task.getDurationInSlots(), task);
             } else {
-                if (currentBlock >= task.getDurationInSlots()) {
-                    for (int i = 0; i < task.getDurationInSlots(); i++) {
-                        slots[blockStart + i] = task;
-                    }
-                    return true;
-                }
-                currentBlock = 0;
-                blockStart = -1;
+                displaced.add(task);
             }
         }
-        if (currentBlock >= task.getDurationInSlots()) {
-            for (int i = 0; i < task.getDurationInSlots(); i++) {
-                slots[blockStart + i] = task;
+        context.allocator.refresh(day);
+        context.calendar.resetFreeSlot(timetable, day);
+    }
+
+    // Gives tasks that did not fit before a chance at freed room, in their original order
+    private void retryUnscheduled(ScheduleContext context, ScheduleResult result, Set<Integer> changed) {
+        Iterator<Task> it = result.getUnscheduledTasks().iterator();
+        while (it.hasNext()) {
+            int day = placeIndexed(context, result.getTimetable(), it.next());
+            if (day >= 0) {
+                it.remove();
+                changed.add(day);
             }
-            return true;
         }
-        return false;
+    }
+
+    // Sleep and work repeat every week, so they are compiled into a 7-day template once and
+    // stamped onto each day; only days with events are laid out slot by slot.
+    private void applyTemplate(Timetable timetable, CalendarMetadata calendar, WeeklyTemplate template,
+                               PartitionedScheduler partitioned, GenerationControl control) {
+        if (timetable instanceof SparseTimetable) {
+            // Untouched days read straight from the template instead of holding a copy
+            ((SparseTimetable) timetable).setBackingWeek(template.week(), calendar.weekday(0));
+        }
+        if (partitioned != null) {
+            partitioned.applyTemplate(template);
+        } else {
+            int days = timetable.getDays();
+            for (int day = 0; day < days; day++) {
+                control.progress(GenerationControl.Phase.SLEEP_AND_WORK, day, days);
+                template.applyTo(timetable, calendar, day);
+            }
+            control.progress(GenerationControl.Phase.SLEEP_AND_WORK, days, days);
+        }
+        calendar.captureFreeSlots(timetable);
+    }
+
+    /**
+     * Tries the task's preferred window on the day, then the whole day. Returns the start
+     * slot it was placed at, or -1.
+     */
+    int tryPlaceTaskOnDay(GapAllocator allocator, CalendarMetadata calendar, int day, Task task) {
+        // Try preferred window first: the zero-cost stretch of the task's slot cost vector
+        int placedAt = -1;
+        TaskCosts.SlotCosts preferred = TaskCosts.slotCosts(calendar.getSlotGrid(), task.getPreferredTime());
+        if (preferred.hasWindow()) {
+            placedAt = tryPlaceTaskInWindow(allocator, calendar, day, task,
+                    preferred.windowStart(), preferred.windowEnd());
+        }
+
+        // If not placed, try anywhere on the same day
+        if (placedAt < 0) {
+            placedAt = tryPlaceTaskInWindow(allocator, calendar, day, task, 0,
+                    allocator.getTimetable().getSlotsPerDay() - 1);
+        }
+        return placedAt;
+    }
+
+    // Helper: Try to place task in a window of slots, returns the start slot or -1
+    private int tryPlaceTaskInWindow(GapAllocator allocator, CalendarMetadata calendar, int day, Task task, int start, int end) {
+        // Nothing before the day's first free slot can be used, so start the search there
+        int from = Math.max(start, calendar.firstFreeSlot(day));
+        if (from > end) {
+            return -1;
+        }
+        int placedAt = allocator.allocate(day, task, from, end);
+        if (placedAt >= 0) {
+            calendar.slotsTaken(allocator.getTimetable(), day, placedAt);
+        }
+        return placedAt;
     }
 
     /**
      * Fallback strategy for unplaced tasks:
      * 1. Search next 3 days for any free slot
      * 2. If still not placed, find nearest non-work day with no events
+     * Returns the day the task was placed on, or -1.
      */
-    private boolean tryPlaceTaskWithFallback(Timetable timetable, Task task, int totalDays, 
-                                              java.time.LocalDate startDate, List<Integer> workdays) {
-        Activity[][] allSlots = timetable.getSlots();
+    int tryPlaceTaskWithFallback(GapAllocator allocator, CalendarMetadata calendar, Timetable timetable,
+                                 Task task, int totalDays) {
 
+        int lastSlot = timetable.getSlotsPerDay() - 1;
         // Step 1: Try next 3 days (from day 0 to min(totalDays, 3))
         int lookAheadDays = Math.min(totalDays, 3);
-        for (int day = 0; day < lookAheadDays; day++) {
-            if (tryPlaceTaskInWindow(allSlots[day], task, 0, 95)) {
-                return true;
+        int duration = task.getDurationInSlots();
+        for (int day = timetable.firstDayWithRoom(0, duration); day >= 0 && day < lookAheadDays;
+                day = timetable.firstDayWithRoom(day + 1, duration)) {
+            if (tryPlaceTaskInWindow(allocator, calendar, day, task, 0, lastSlot) >= 0) {
+                return day;
             }
         }
 
         // Step 2: Find nearest non-work day with no events
-        for (int day = 0; day < totalDays; day++) {
-            java.time.LocalDate date = startDate.plusDays(day);
-            int weekday = date.getDayOfWeek().getValue(); // 1=Mon, 7=Sun
-            
+        for (int day = timetable.firstDayWithRoom(0, duration); day >= 0;
+                day = timetable.firstDayWithRoom(day + 1, duration)) {
             // Check if this is a non-work day
-            if (!workdays.contains(weekday - 1)) {
-                // Check if this day has no events (scan for Event instances)
-                Activity[] daySlots = allSlots[day];
-                boolean hasEvent = false;
-                for (Activity act : daySlots) {
-                    if (act instanceof Event) {
-                        hasEvent = true;
-                        break;
-                    }
-                }
-                
+            if (!calendar.isWorkday(day)) {
                 // If no events on this non-work day, try to place task
-                if (!hasEvent) {
-                    if (tryPlaceTaskInWindow(daySlots, task, 0, 95)) {
-                        return true;
+                if (!calendar.hasEvent(day)) {
+                    if (tryPlaceTaskInWindow(allocator, calendar, day, task, 0, lastSlot) >= 0) {
+                        return day;
                     }
                 }
             }
         }
 
-        return false; // Could not place task anywhere
+        return -1; // Could not place task anywhere
     }
 }
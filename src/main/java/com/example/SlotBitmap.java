@@ -0,0 +1,149 @@
+package com.example;
+
+/**
+ * Word-level helpers for per-day occupancy bitmaps. Bit {@code i} of a day's
+ * {@code long[]} is set when slot {@code i} is taken, so a 96-slot day fits in
+ * two longs and free-run searches skip whole words at a time.
+ */
+final class SlotBitmap {
+    private SlotBitmap() {
+    }
+
+    static int wordsFor(int slots) {
+        return (slots + 63) >>> 6;
+    }
+
+    static boolean get(long[] words, int bit) {
+        return (words[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    static void set(long[] words, int bit) {
+        words[bit >>> 6] |= 1L << bit;
+    }
+
+    static void clear(long[] words, int bit) {
+        words[bit >>> 6] &= ~(1L << bit);
+    }
+
+    /** Sets bits [from, to). */
+    static void set(long[] words, int from, int to) {
+        if (from >= to) return;
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[first] |= firstMask & lastMask;
+            return;
+        }
+        words[first] |= firstMask;
+        for (int w = first + 1; w < last; w++) {
+            words[w] = -1L;
+        }
+        words[last] |= lastMask;
+    }
+
+    /** Clears bits [from, to). */
+    static void clear(long[] words, int from, int to) {
+        if (from >= to) return;
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            words[first] &= ~(firstMask & lastMask);
+            return;
+        }
+        words[first] &= ~firstMask;
+        for (int w = first + 1; w < last; w++) {
+            words[w] = 0L;
+        }
+        words[last] &= ~lastMask;
+    }
+
+    /** Returns true when every bit in [from, to) is clear. */
+    static boolean isClear(long[] words, int from, int to) {
+        if (from >= to) return true;
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> -to;
+        if (first == last) {
+            return (words[first] & firstMask & lastMask) == 0;
+        }
+        if ((words[first] & firstMask) != 0) return false;
+        for (int w = first + 1; w < last; w++) {
+            if (words[w] != 0) return false;
+        }
+        return (words[last] & lastMask) == 0;
+    }
+
+    /** Index of the first set bit in [from, limit), or {@code limit} if none. */
+    static int nextSetBit(long[] words, int from, int limit) {
+        if (from >= limit) return limit;
+        int w = from >>> 6;
+        long word = words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return Math.min(limit, (w << 6) + Long.numberOfTrailingZeros(word));
+            }
+            if (++w >= words.length || (w << 6) >= limit) return limit;
+            word = words[w];
+        }
+    }
+
+    /** Index of the first clear bit in [from, limit), or {@code limit} if none. */
+    static int nextClearBit(long[] words, int from, int limit) {
+        if (from >= limit) return limit;
+        int w = from >>> 6;
+        long word = ~words[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return Math.min(limit, (w << 6) + Long.numberOfTrailingZeros(word));
+            }
+            if (++w >= words.length || (w << 6) >= limit) return limit;
+            word = ~words[w];
+        }
+    }
+
+    /** Index of the last set bit at or below {@code from}, or -1 if none. */
+    static int prevSetBit(long[] words, int from) {
+        if (from < 0) return -1;
+        int w = from >>> 6;
+        long word = words[w] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (--w < 0) return -1;
+            word = words[w];
+        }
+    }
+
+    /**
+     * First start of {@code length} consecutive clear bits inside [from, to),
+     * or -1 when no such run exists. Hops from run to run instead of slot to slot.
+     */
+    static int findClearRun(long[] words, int from, int to, int length) {
+        if (length <= 0) return from < to ? from : -1;
+        int start = nextClearBit(words, from, to);
+        while (start + length <= to) {
+            int end = nextSetBit(words, start, to);
+            if (end - start >= length) return start;
+            start = nextClearBit(words, end, to);
+        }
+        return -1;
+    }
+
+    /** Length of the longest run of clear bits in [0, limit). */
+    static int largestClearRun(long[] words, int limit) {
+        int best = 0;
+        int start = nextClearBit(words, 0, limit);
+        while (start < limit) {
+            int end = nextSetBit(words, start, limit);
+            best = Math.max(best, end - start);
+            start = nextClearBit(words, end, limit);
+        }
+        return best;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example;
+
+/**
+ * The time resolution of a timetable: how many minutes one slot covers and what that
+ * makes of a day. Every slot number, duration in slots and window bound means something
+ * only against a grid, so timetables carry theirs and everything that turns hours and
+ * minutes into slots (scheduler inputs, persistence, views) goes through it.
+ *
+ * Grids are shared immutable values; use {@link #ofMinutes} rather than comparing by
+ * identity.
+ */
+public final class SlotGrid {
+    /** The original grid, 96 slots of 15 minutes. */
+    public static final SlotGrid QUARTER_HOUR = new SlotGrid(15);
+    /** 288 slots of 5 minutes. */
+    public static final SlotGrid FIVE_MINUTES = new SlotGrid(5);
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int minutesPerSlot;
+    private final int slotsPerHour;
+    private final int slotsPerDay;
+    private final int wordsPerDay;
+    // Preferred-time cost vectors for this grid, built once and shared by every task
+    private volatile TaskCosts.SlotCosts[] preferenceCosts;
+
+    private SlotGrid(int minutesPerSlot) {
+        this.minutesPerSlot = minutesPerSlot;
+        this.slotsPerHour = 60 / minutesPerSlot;
+        this.slotsPerDay = MINUTES_PER_DAY / minutesPerSlot;
+        this.wordsPerDay = SlotBitmap.wordsFor(slotsPerDay);
+    }
+
+    /** The grid with slots of {@code minutesPerSlot} minutes, which must divide an hour. */
+    public static SlotGrid ofMinutes(int minutesPerSlot) {
+        if (minutesPerSlot == 15) return QUARTER_HOUR;
+        if (minutesPerSlot == 5) return FIVE_MINUTES;
+        if (minutesPerSlot < 1 || 60 % minutesPerSlot != 0) {
+            throw new IllegalArgumentException("Slot length must divide an hour, got " + minutesPerSlot + " minutes");
+        }
+        return new SlotGrid(minutesPerSlot);
+    }
+
+    public int getMinutesPerSlot() {
+        return minutesPerSlot;
+    }
+
+    public int getSlotsPerHour() {
+        return slotsPerHour;
+    }
+
+    public int getSlotsPerDay() {
+        return slotsPerDay;
+    }
+
+    // Occupancy words per day row
+    int wordsPerDay() {
+        return wordsPerDay;
+    }
+
+    /** Slot that contains hour:minute of the day. */
+    public int slotAt(int hour, int minute) {
+        return (hour * 60 + minute) / minutesPerSlot;
+    }
+
+    /** Number of slots covering a duration, rounded up so nothing is cut short. */
+    public int slotsFor(int hours, int minutes) {
+        return (hours * 60 + minutes + minutesPerSlot - 1) / minutesPerSlot;
+    }
+
+    /** Minute of the day a slot starts at; slotsPerDay gives 24:00. */
+    public int minuteOfDay(int slot) {
+        return slot * minutesPerSlot;
+    }
+
+    /** Start time of a slot as HH:mm; the end of the last slot is 24:00. */
+    public String formatSlot(int slot) {
+        int minutes = minuteOfDay(slot);
+        return String.format("%02d:%02d", minutes / 60, minutes % 60);
+    }
+
+    /** The same stretch of time on another grid, for slot counts and start slots alike. */
+    public int convert(int slots, SlotGrid from) {
+        return slots * from.minutesPerSlot / minutesPerSlot;
+    }
+
+    TaskCosts.SlotCosts[] preferenceCosts() {
+        TaskCosts.SlotCosts[] costs = preferenceCosts;
+        if (costs == null) {
+            // Benign race: concurrent callers build equal arrays and one of them sticks
+            costs = TaskCosts.SlotCosts.buildFor(this);
+            preferenceCosts = costs;
+        }
+        return costs;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SlotGrid && ((SlotGrid) o).minutesPerSlot == minutesPerSlot;
+    }
+
+    @Override
+    public int hashCode() {
+        return minutesPerSlot;
+    }
+
+    @Override
+    public String toString() {
+        return minutesPerSlot + "-minute slots";
+    }
+}
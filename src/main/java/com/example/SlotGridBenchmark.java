@@ -0,0 +1,114 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Times the same year of inputs generated on 15-minute and on 5-minute slots, dense and
+ * sparse, plus the pass that merges a generated day into the runs a day view draws.
+ * Durations and times are picked in minutes and converted through each grid, so both
+ * grids schedule the same stretches of time; a finer grid should cost a little more
+ * per day, not three times as much.
+ *
+ * Usage: SlotGridBenchmark [days] [tasks]. Prints median milliseconds per grid and the
+ * ratio of the 5-minute time to the 15-minute one.
+ */
+public class SlotGridBenchmark {
+    private static final int WARMUP_RUNS = 10;
+    private static final int TIMED_RUNS = 15;
+
+    public static void main(String[] args) {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 365;
+        int taskCount = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        LocalDate start = LocalDate.of(2025, 1, 6);
+        LocalDate end = start.plusDays(days - 1);
+
+        // Warm both grids up before timing either, so the first one timed is not the colder
+        for (SlotGrid grid : new SlotGrid[]{SlotGrid.QUARTER_HOUR, SlotGrid.FIVE_MINUTES}) {
+            time(grid, false, days, taskCount, start, end);
+            time(grid, true, days, taskCount, start, end);
+        }
+        for (boolean sparse : new boolean[]{false, true}) {
+            String storage = sparse ? "sparse" : "dense";
+            double[] coarse = time(SlotGrid.QUARTER_HOUR, sparse, days, taskCount, start, end);
+            double[] fine = time(SlotGrid.FIVE_MINUTES, sparse, days, taskCount, start, end);
+            report("generate/" + storage, coarse[0], fine[0]);
+            report("day runs/" + storage, coarse[1], fine[1]);
+        }
+    }
+
+    // Median generation and run-merging times in ms
+    private static double[] time(SlotGrid grid, boolean sparse, int days, int taskCount,
+                                 LocalDate start, LocalDate end) {
+        double[] generate = new double[TIMED_RUNS];
+        double[] render = new double[TIMED_RUNS];
+        for (int run = -WARMUP_RUNS; run < TIMED_RUNS; run++) {
+            SchedulerService scheduler = new SchedulerService();
+            scheduler.setSlotGrid(grid);
+            scheduler.setSparseStorage(sparse);
+            List<Task> tasks = new ArrayList<>();
+            List<Event> events = new ArrayList<>();
+            inputs(grid, days, taskCount, start, tasks, events);
+
+            long t0 = System.nanoTime();
+            ScheduleResult result = scheduler.generateTimetable(List.of(0, 1, 2, 3, 4),
+                    grid.slotAt(9, 0), grid.slotsFor(8, 0), grid.slotsFor(8, 0), tasks, events, start, end);
+            long t1 = System.nanoTime();
+            int runs = countRuns(result.getTimetable());
+            long t2 = System.nanoTime();
+            if (run >= 0) {
+                generate[run] = (t1 - t0) / 1e6;
+                render[run] = (t2 - t1) / 1e6;
+            } else if (runs == 0) {
+                System.out.println("empty timetable");
+            }
+        }
+        return new double[]{median(generate), median(render)};
+    }
+
+    // Same seed for every grid: durations are drawn in 15-minute steps and converted
+    private static void inputs(SlotGrid grid, int days, int taskCount, LocalDate start,
+                               List<Task> tasks, List<Event> events) {
+        Random random = new Random(7);
+        String[] preferences = {"morning", "evening", "any"};
+        for (int i = 0; i < taskCount; i++) {
+            int minutes = 15 * (1 + random.nextInt(12));
+            Integer targetDay = random.nextInt(3) == 0 ? null : random.nextInt(7);
+            tasks.add(new Task("T" + i, grid.slotsFor(0, minutes), targetDay, preferences[random.nextInt(3)]));
+        }
+        for (int i = 0; i < 300; i++) {
+            int minutes = 15 * (1 + random.nextInt(8));
+            int startMinute = 15 * random.nextInt(90);
+            events.add(new Event("E" + i, grid.slotsFor(0, minutes), start.plusDays(random.nextInt(days)),
+                    grid.slotAt(startMinute / 60, startMinute % 60)));
+        }
+    }
+
+    // The merge TimetableDayView does before drawing: one block per run of the same activity
+    private static int countRuns(Timetable timetable) {
+        int runs = 0;
+        for (int day = 0; day < timetable.getDays(); day++) {
+            int previous = 0;
+            for (int slot = 0; slot < timetable.getSlotsPerDay(); slot++) {
+                int id = timetable.getSlotId(day, slot);
+                if (id != 0 && id != previous) {
+                    runs++;
+                }
+                previous = id;
+            }
+        }
+        return runs;
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        java.util.Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static void report(String what, double coarse, double fine) {
+        System.out.printf("%-20s 15-min %8.2f ms   5-min %8.2f ms   ratio %.2f%n", what, coarse, fine, fine / coarse);
+    }
+}
@@ -0,0 +1,270 @@
+package com.example;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link ActivityRepository.Storage#SPANS}: one row per run of consecutive slots holding
+ * the same activity, indexed by date.
+ */
+final class SpanStore implements TimetableStore {
+    // Rows per multi-row insert; five parameters each keeps it under SQLite's 999-variable limit
+    private static final int ROWS_PER_INSERT = 150;
+
+    private static final String SELECT_DAY = "SELECT t.start_slot, t.end_slot, t.slot_minutes, a.name, a.type " +
+            "FROM timetable_spans t JOIN activities a ON t.activity_id = a.id WHERE t.date = ? ORDER BY t.start_slot";
+    private static final String SELECT_RANGE = "SELECT date, start_slot, end_slot, activity_id, slot_minutes " +
+            "FROM timetable_spans WHERE date >= ? AND date <= ? ORDER BY date, start_slot";
+    private static final String DELETE_RANGE = "DELETE FROM timetable_spans WHERE date >= ? AND date <= ?";
+    private static final String DELETE_DAY = "DELETE FROM timetable_spans WHERE date = ?";
+
+    @Override
+    public void createTables(ConnectionManager.Session session) throws SQLException {
+        try (Statement stmt = session.connection().createStatement()) {
+            stmt.executeUpdate("CREATE TABLE IF NOT EXISTS timetable_spans (" +
+                    "id INTEGER PRIMARY KEY," +
+                    "date TEXT NOT NULL," + // ISO yyyy-MM-dd
+                    "start_slot INTEGER NOT NULL," + // first slot, on the span's grid
+                    "end_slot INTEGER NOT NULL," + // one past the last slot, at most slots per day
+                    "activity_id INTEGER NOT NULL," +
+                    "slot_minutes INTEGER NOT NULL DEFAULT 15," + // SlotGrid the slots are counted on
+                    "FOREIGN KEY(activity_id) REFERENCES activities(id)" +
+                    ")");
+            // Natural key of a span, and the index every date lookup, range and delete goes through
+            if (!hasSchemaObject(session, "index", "ux_timetable_spans_date_start")) {
+                // Spans saved before the key existed could repeat a start; keep the latest
+                stmt.executeUpdate("DELETE FROM timetable_spans WHERE id NOT IN " +
+                        "(SELECT MAX(id) FROM timetable_spans GROUP BY date, start_slot)");
+                stmt.executeUpdate("CREATE UNIQUE INDEX ux_timetable_spans_date_start ON timetable_spans(date, start_slot)");
+            }
+            // Superseded by the key, which starts with date
+            stmt.executeUpdate("DROP INDEX IF EXISTS idx_timetable_spans_date");
+            if (hasSchemaObject(session, "table", "timetable_entries")) {
+                migrateEntriesToSpans(stmt, hasColumn(session, "timetable_entries", "slot_minutes"));
+            }
+        }
+    }
+
+    /**
+     * Folds the per-slot rows of the old timetable_entries table into spans and drops it.
+     * Slots of one activity on one date are consecutive exactly when slot minus their rank
+     * is constant, so each such group becomes one span.
+     */
+    private static void migrateEntriesToSpans(Statement stmt, boolean hasSlotMinutes) throws SQLException {
+        // Databases from before configurable grids only ever held 15-minute slots
+        String minutes = hasSlotMinutes ? "slot_minutes" : "15";
+        // Old rows could hold two activities in one slot; the first span for a start wins
+        stmt.executeUpdate("INSERT OR IGNORE INTO timetable_spans (date, start_slot, end_slot, activity_id, slot_minutes) " +
+                "SELECT date, MIN(slot), MAX(slot) + 1, activity_id, slot_minutes FROM (" +
+                "SELECT date, slot, activity_id, slot_minutes, " +
+                "slot - ROW_NUMBER() OVER (PARTITION BY date, activity_id, slot_minutes ORDER BY slot) AS run " +
+                "FROM (SELECT DISTINCT date, slot, activity_id, " + minutes + " AS slot_minutes FROM timetable_entries)" +
+                ") GROUP BY date, activity_id, slot_minutes, run");
+        stmt.executeUpdate("DROP TABLE timetable_entries");
+    }
+
+    private static boolean hasSchemaObject(ConnectionManager.Session session, String type, String name) throws SQLException {
+        try (PreparedStatement pstmt = session.connection().prepareStatement(
+                "SELECT 1 FROM sqlite_master WHERE type = ? AND name = ?")) {
+            pstmt.setString(1, type);
+            pstmt.setString(2, name);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    private static boolean hasColumn(ConnectionManager.Session session, String table, String column) throws SQLException {
+        try (Statement stmt = session.connection().createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Map<String, String> hotQueries() {
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("day", SELECT_DAY);
+        queries.put("range", SELECT_RANGE);
+        queries.put("delete range", DELETE_RANGE);
+        queries.put("delete day", DELETE_DAY);
+        return queries;
+    }
+
+    @Override
+    public Writer writer(ConnectionManager.Session session) {
+        return new SpanWriter(session);
+    }
+
+    @Override
+    public void deleteRange(ConnectionManager.Session session, String startDate, String endDate) throws SQLException {
+        PreparedStatement del = session.prepare(DELETE_RANGE);
+        del.setString(1, startDate);
+        del.setString(2, endDate);
+        del.executeUpdate();
+    }
+
+    @Override
+    public List<String> dates(ConnectionManager.Session session) throws SQLException {
+        List<String> dates = new ArrayList<>();
+        try (ResultSet rs = session.prepare("SELECT DISTINCT date FROM timetable_spans ORDER BY date").executeQuery()) {
+            while (rs.next()) {
+                dates.add(rs.getString("date"));
+            }
+        }
+        return dates;
+    }
+
+    @Override
+    public List<ActivityRepository.TimetableEntry> day(ConnectionManager.Session session, String date) throws SQLException {
+        List<ActivityRepository.TimetableEntry> entries = new ArrayList<>();
+        PreparedStatement pstmt = session.prepare(SELECT_DAY);
+        pstmt.setString(1, date);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                String name = rs.getString("name");
+                String type = rs.getString("type");
+                SlotGrid grid = SlotGrid.ofMinutes(rs.getInt("slot_minutes"));
+                entries.add(new ActivityRepository.TimetableEntry(date, rs.getInt("start_slot"), rs.getInt("end_slot"), name, type, grid));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public void forEachDay(ConnectionManager.Session session, String startDate, String endDate,
+                           ActivityRepository.DayVisitor visitor) throws SQLException {
+        PreparedStatement pstmt = session.prepare(SELECT_RANGE);
+        pstmt.setString(1, startDate);
+        pstmt.setString(2, endDate);
+        String date = null;
+        SlotGrid grid = null;
+        int[] ids = new int[0];
+        try (ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                String spanDate = rs.getString(1);
+                if (!spanDate.equals(date)) {
+                    if (date != null) {
+                        visitor.visit(date, grid, ids);
+                    }
+                    date = spanDate;
+                    grid = SlotGrid.ofMinutes(rs.getInt(5));
+                    if (ids.length != grid.getSlotsPerDay()) {
+                        ids = new int[grid.getSlotsPerDay()];
+                    } else {
+                        Arrays.fill(ids, 0);
+                    }
+                }
+                Arrays.fill(ids, rs.getInt(2), Math.min(rs.getInt(3), ids.length), rs.getInt(4));
+            }
+        }
+        if (date != null) {
+            visitor.visit(date, grid, ids);
+        }
+    }
+
+    /**
+     * Turns days into spans and writes them {@link #ROWS_PER_INSERT} to a statement. The
+     * full-size statement is cached on the session; a shorter tail gets a one-off one.
+     */
+    private static final class SpanWriter implements Writer {
+        private final ConnectionManager.Session session;
+        private final String[] dates = new String[ROWS_PER_INSERT];
+        private final int[] starts = new int[ROWS_PER_INSERT];
+        private final int[] ends = new int[ROWS_PER_INSERT];
+        private final int[] activityIds = new int[ROWS_PER_INSERT];
+        private final int[] minutes = new int[ROWS_PER_INSERT];
+        private int buffered;
+        private long written;
+
+        SpanWriter(ConnectionManager.Session session) {
+            this.session = session;
+        }
+
+        @Override
+        public void deleteDay(String date) throws SQLException {
+            PreparedStatement del = session.prepare(DELETE_DAY);
+            del.setString(1, date);
+            del.executeUpdate();
+        }
+
+        @Override
+        public void addDay(String date, SlotGrid grid, int[] slotIds) throws SQLException {
+            int slots = grid.getSlotsPerDay();
+            int runId = 0;
+            int runStart = 0;
+            // One step past the last slot closes the final run
+            for (int slot = 0; slot <= slots; slot++) {
+                int id = slot < slots ? slotIds[slot] : 0;
+                if (id != runId) {
+                    if (runId != 0) {
+                        add(date, runStart, slot, runId, grid.getMinutesPerSlot());
+                    }
+                    runId = id;
+                    runStart = slot;
+                }
+            }
+        }
+
+        private void add(String date, int startSlot, int endSlot, int activityId, int slotMinutes) throws SQLException {
+            dates[buffered] = date;
+            starts[buffered] = startSlot;
+            ends[buffered] = endSlot;
+            activityIds[buffered] = activityId;
+            minutes[buffered] = slotMinutes;
+            if (++buffered == ROWS_PER_INSERT) {
+                flush();
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (buffered == ROWS_PER_INSERT) {
+                write(session.prepare(insertSpans(ROWS_PER_INSERT)));
+            } else if (buffered > 0) {
+                try (PreparedStatement pstmt = session.connection().prepareStatement(insertSpans(buffered))) {
+                    write(pstmt);
+                }
+            }
+        }
+
+        @Override
+        public long finish() throws SQLException {
+            flush();
+            return written;
+        }
+
+        private void write(PreparedStatement pstmt) throws SQLException {
+            int p = 1;
+            for (int i = 0; i < buffered; i++) {
+                pstmt.setString(p++, dates[i]);
+                pstmt.setInt(p++, starts[i]);
+                pstmt.setInt(p++, ends[i]);
+                pstmt.setInt(p++, activityIds[i]);
+                pstmt.setInt(p++, minutes[i]);
+            }
+            pstmt.executeUpdate();
+            written += buffered;
+            buffered = 0;
+        }
+    }
+
+    private static String insertSpans(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO timetable_spans (date, start_slot, end_slot, activity_id, slot_minutes) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?, ?)" : ", (?, ?, ?, ?, ?)");
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example;
+
+/**
+ * A {@link Timetable} that only allocates storage for days that are written to.
+ * Untouched days are served from a shared backing week (normally the compiled
+ * recurring sleep/work template) or read as empty, so multi-year horizons cost
+ * memory in proportion to the days that actually differ from the template.
+ */
+public class SparseTimetable extends Timetable {
+    // What days read as with neither own rows nor a backing week; never written
+    private final int[] emptySlots;
+    private final long[] emptyOccupancy;
+
+    private Timetable backingWeek;
+    private int firstWeekday;
+
+    public SparseTimetable(int days) {
+        this(days, SlotGrid.QUARTER_HOUR);
+    }
+
+    public SparseTimetable(int days, SlotGrid grid) {
+        this(days, new ActivityRegistry(), grid);
+    }
+
+    public SparseTimetable(int days, ActivityRegistry registry) {
+        this(days, registry, SlotGrid.QUARTER_HOUR);
+    }
+
+    public SparseTimetable(int days, ActivityRegistry registry, SlotGrid grid) {
+        super(days, registry, grid, false);
+        this.emptySlots = new int[grid.getSlotsPerDay()];
+        this.emptyOccupancy = new long[grid.wordsPerDay()];
+    }
+
+    /**
+     * Serves every day that has not been written yet from {@code week}, a 7-day
+     * timetable indexed by weekday (0=Mon) sharing this timetable's registry.
+     * {@code firstWeekday} is the weekday of day 0.
+     */
+    public void setBackingWeek(Timetable week, int firstWeekday) {
+        if (week.getDays() != 7 || week.getRegistry() != getRegistry()
+                || week.getSlotsPerDay() != getSlotsPerDay()) {
+            throw new IllegalArgumentException("Backing week must be a 7-day timetable with the same registry and grid");
+        }
+        this.backingWeek = week;
+        this.firstWeekday = firstWeekday;
+    }
+
+    public boolean isMaterialized(int day) {
+        return hasRows(day);
+    }
+
+    public int getMaterializedDays() {
+        int count = 0;
+        for (int day = 0; day < getDays(); day++) {
+            if (hasRows(day)) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Drops a day's own storage, so it reads from the backing week again. Lets a
+     * generator that never looks back keep only a window of days in memory.
+     */
+    void release(int day) {
+        installRows(day, null, null);
+    }
+
+    @Override
+    public void copyDay(Timetable source, int sourceDay, int targetDay) {
+        // Stamping the backing week onto a day that still reads from it changes nothing
+        if (source == backingWeek && !hasRows(targetDay) && sourceDay == backingWeekday(targetDay)) {
+            return;
+        }
+        super.copyDay(source, sourceDay, targetDay);
+    }
+
+    @Override
+    protected int[] slotRow(int day) {
+        int[] row = super.slotRow(day);
+        if (row != null) return row;
+        return backingWeek != null ? backingWeek.slotRow(backingWeekday(day)) : emptySlots;
+    }
+
+    @Override
+    protected long[] occupancyRow(int day) {
+        long[] row = super.occupancyRow(day);
+        if (row != null) return row;
+        return backingWeek != null ? backingWeek.occupancyRow(backingWeekday(day)) : emptyOccupancy;
+    }
+
+    @Override
+    protected void materialize(int day) {
+        if (hasRows(day)) return;
+        // Start from whatever the day currently reads as, then let the write land on the copy
+        installRows(day, slotRow(day).clone(), occupancyRow(day).clone());
+    }
+
+    private int backingWeekday(int day) {
+        return (firstWeekday + day) % 7;
+    }
+}
@@ -0,0 +1,191 @@
+package com.example;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Saves and loads the same generated timetable through each {@link ActivityRepository.Storage}
+ * and through the old one-row-per-slot table, each in its own scratch database. Reads are
+ * timed both as entries for every day ({@link ActivityRepository#getTimetableForDate}) and
+ * as one range pass over slot arrays ({@link ActivityRepository#forEachDay}); the per-slot
+ * table, indexed on (date, slot), only has the first.
+ *
+ * Usage: StorageBenchmark [days] [tasks]. Prints median milliseconds and row counts.
+ */
+public class StorageBenchmark {
+    private static final int WARMUP_RUNS = 5;
+    private static final int TIMED_RUNS = 11;
+
+    public static void main(String[] args) throws IOException, SQLException {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 365;
+        int taskCount = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        LocalDate start = LocalDate.of(2025, 1, 6);
+        LocalDate end = start.plusDays(days - 1);
+
+        List<Task> tasks = new ArrayList<>();
+        List<Event> events = new ArrayList<>();
+        Random random = new Random(7);
+        String[] preferences = {"morning", "evening", "any"};
+        for (int i = 0; i < taskCount; i++) {
+            Integer targetDay = random.nextInt(3) == 0 ? null : random.nextInt(7);
+            tasks.add(new Task("T" + i, 1 + random.nextInt(12), targetDay, preferences[random.nextInt(3)]));
+        }
+        for (int i = 0; i < 300; i++) {
+            events.add(new Event("E" + i, 1 + random.nextInt(8), start.plusDays(random.nextInt(days)), random.nextInt(90)));
+        }
+        ScheduleResult result = new SchedulerService().generateTimetable(List.of(0, 1, 2, 3, 4),
+                36, 32, 32, tasks, events, start, end);
+        List<Activity> activities = new ArrayList<>();
+        activities.add(new FixedActivity("Sleep", 32));
+        activities.add(new FixedActivity("Work", 32));
+        activities.addAll(tasks);
+        activities.addAll(events);
+
+        System.out.printf("%-10s %10s %10s %12s %12s%n", "storage", "rows", "save ms", "day reads ms", "range ms");
+        slotRows(scratchUrl(), result.getTimetable(), start, end);
+        for (ActivityRepository.Storage storage : ActivityRepository.Storage.values()) {
+            repository(new ActivityRepository(scratchUrl(), storage), storage.name(), result.getTimetable(),
+                    activities, start, end);
+        }
+    }
+
+    private static String scratchUrl() throws IOException {
+        File file = File.createTempFile("storage-benchmark", ".db");
+        file.deleteOnExit();
+        new File(file.getPath() + "-wal").deleteOnExit();
+        new File(file.getPath() + "-shm").deleteOnExit();
+        return "jdbc:sqlite:" + file.getAbsolutePath();
+    }
+
+    private static void repository(ActivityRepository repository, String name, Timetable timetable,
+                                   List<Activity> activities, LocalDate start, LocalDate end) {
+        Map<Activity, Integer> ids = repository.addActivities(activities);
+        Map<String, Integer> byName = new java.util.HashMap<>();
+        ids.forEach((activity, id) -> byName.merge(activity.getName(), id, Math::max));
+        double[] save = new double[TIMED_RUNS];
+        double[] dayReads = new double[TIMED_RUNS];
+        double[] range = new double[TIMED_RUNS];
+        long rows = 0;
+        for (int run = -WARMUP_RUNS; run < TIMED_RUNS; run++) {
+            long t0 = System.nanoTime();
+            rows = repository.saveTimetable(timetable, start, end, byName, ids).getRows();
+            long t1 = System.nanoTime();
+            int entries = 0;
+            for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+                entries += repository.getTimetableForDate(date.toString()).size();
+            }
+            long t2 = System.nanoTime();
+            long[] busy = new long[1];
+            repository.forEachDay(start.toString(), end.toString(), (date, grid, slots) -> {
+                for (int id : slots) {
+                    if (id != 0) busy[0]++;
+                }
+            });
+            long t3 = System.nanoTime();
+            if (run >= 0) {
+                save[run] = (t1 - t0) / 1e6;
+                dayReads[run] = (t2 - t1) / 1e6;
+                range[run] = (t3 - t2) / 1e6;
+            } else if (entries == 0 || busy[0] == 0) {
+                System.out.println(name + ": nothing saved");
+            }
+        }
+        System.out.printf("%-10s %10d %10.2f %12.2f %12.2f%n", name, rows, median(save), median(dayReads), median(range));
+    }
+
+    // The layout before spans: one row per busy slot, written and read the way the repository used to
+    private static void slotRows(String url, Timetable timetable, LocalDate start, LocalDate end) throws SQLException {
+        double[] save = new double[TIMED_RUNS];
+        double[] dayReads = new double[TIMED_RUNS];
+        long rows = 0;
+        try (Connection connection = DriverManager.getConnection(url)) {
+            try (Statement stmt = connection.createStatement()) {
+                stmt.execute("PRAGMA journal_mode=WAL");
+                stmt.execute("PRAGMA synchronous=NORMAL");
+                stmt.executeUpdate("CREATE TABLE activities (id INTEGER PRIMARY KEY, name TEXT NOT NULL, type TEXT NOT NULL)");
+                stmt.executeUpdate("CREATE TABLE slot_rows (id INTEGER PRIMARY KEY, date TEXT NOT NULL, " +
+                        "slot INTEGER NOT NULL, activity_id INTEGER NOT NULL, slot_minutes INTEGER NOT NULL)");
+                // The old table had no index; given one here so the comparison is of layouts, not of scans
+                stmt.executeUpdate("CREATE INDEX idx_slot_rows_date_slot ON slot_rows(date, slot)");
+            }
+            // Registry ids double as database ids here
+            ActivityRegistry registry = timetable.getRegistry();
+            try (PreparedStatement insert = connection.prepareStatement("INSERT OR IGNORE INTO activities VALUES (?, ?, ?)")) {
+                for (int id = 1; id < registry.size(); id++) {
+                    Activity activity = registry.get(id);
+                    insert.setInt(1, id);
+                    insert.setString(2, activity.getName());
+                    insert.setString(3, activity.getClass().getSimpleName());
+                    insert.executeUpdate();
+                }
+            }
+            int slots = timetable.getSlotsPerDay();
+            for (int run = -WARMUP_RUNS; run < TIMED_RUNS; run++) {
+                long t0 = System.nanoTime();
+                connection.setAutoCommit(false);
+                try (PreparedStatement delete = connection.prepareStatement("DELETE FROM slot_rows");
+                     PreparedStatement insert = connection.prepareStatement(
+                             "INSERT INTO slot_rows (date, slot, activity_id, slot_minutes) VALUES (?, ?, ?, ?)")) {
+                    delete.executeUpdate();
+                    rows = 0;
+                    for (int day = 0; day < timetable.getDays(); day++) {
+                        String date = start.plusDays(day).toString();
+                        for (int slot = 0; slot < slots; slot++) {
+                            int id = timetable.getSlotId(day, slot);
+                            if (id == 0) continue;
+                            insert.setString(1, date);
+                            insert.setInt(2, slot);
+                            insert.setInt(3, id);
+                            insert.setInt(4, timetable.getSlotGrid().getMinutesPerSlot());
+                            insert.addBatch();
+                            rows++;
+                        }
+                    }
+                    insert.executeBatch();
+                }
+                connection.commit();
+                connection.setAutoCommit(true);
+                long t1 = System.nanoTime();
+                int entries = 0;
+                try (PreparedStatement select = connection.prepareStatement("SELECT t.slot, t.slot_minutes, a.name, a.type " +
+                        "FROM slot_rows t JOIN activities a ON t.activity_id = a.id WHERE t.date = ? ORDER BY t.slot")) {
+                    for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+                        select.setString(1, date.toString());
+                        try (ResultSet rs = select.executeQuery()) {
+                            while (rs.next()) {
+                                new ActivityRepository.TimetableEntry(date.toString(), rs.getInt(1), rs.getString(3),
+                                        rs.getString(4), SlotGrid.ofMinutes(rs.getInt(2)));
+                                entries++;
+                            }
+                        }
+                    }
+                }
+                long t2 = System.nanoTime();
+                if (run >= 0) {
+                    save[run] = (t1 - t0) / 1e6;
+                    dayReads[run] = (t2 - t1) / 1e6;
+                } else if (entries == 0) {
+                    System.out.println("slot rows: nothing saved");
+                }
+            }
+        }
+        System.out.printf("%-10s %10d %10.2f %12.2f %12s%n", "SLOT_ROWS", rows, median(save), median(dayReads), "-");
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        java.util.Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,182 @@
+package com.example;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Day-major driver behind {@link SchedulerService#streamTimetable}. Instead of taking each
+ * task in turn and scanning the days for it, it takes each day in turn and offers it every
+ * still pending task in input order. A task reaches day d exactly when it fit none of the
+ * days before it, so every placement matches the task-major greedy pass, but once a day
+ * has been offered every pending task no later step can touch it and it is handed out.
+ *
+ * The one exception is the fallback for day-pinned tasks, which can reach back to days
+ * already handed out; here those tasks stay unscheduled instead.
+ */
+final class StreamingScheduler {
+    private final SchedulerService service;
+    private final GapAllocator.Policy policy;
+    private final SlotGrid grid;
+    private final List<Integer> workdays;
+    private final int workStartSlot;
+    private final int workDurationSlots;
+    private final int sleepDurationSlots;
+    private final List<Task> tasks;
+    private final List<Event> events;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+
+    StreamingScheduler(SchedulerService service, GapAllocator.Policy policy, SlotGrid grid, List<Integer> workdays,
+                       int workStartSlot, int workDurationSlots, int sleepDurationSlots,
+                       List<Task> tasks, List<Event> events, LocalDate startDate, LocalDate endDate) {
+        this.service = service;
+        this.policy = policy;
+        this.grid = grid;
+        this.workdays = new ArrayList<>(workdays);
+        this.workStartSlot = workStartSlot;
+        this.workDurationSlots = workDurationSlots;
+        this.sleepDurationSlots = sleepDurationSlots;
+        this.tasks = new ArrayList<>(tasks);
+        this.events = new ArrayList<>(events);
+        this.startDate = startDate;
+        this.endDate = endDate;
+    }
+
+    /**
+     * Generates the days in order, passing each to {@code sink} as soon as it is final, and
+     * returns the unscheduled tasks. Stops early, returning null, once {@code cancelled}
+     * reports true between days.
+     */
+    List<Task> run(Consumer<ScheduledDay> sink, java.util.function.BooleanSupplier cancelled) {
+        int days = (int) java.time.temporal.ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        // Each day gets storage when it is built and gives it back once handed out, so only
+        // the day being built is held. No backing week: event days must start out empty.
+        SparseTimetable timetable = new SparseTimetable(days, grid);
+        CalendarMetadata calendar = CalendarMetadata.build(startDate, days, workdays, grid);
+        WeeklyTemplate template = WeeklyTemplate.compile(timetable.getRegistry(), calendar,
+                sleepDurationSlots, workStartSlot, workDurationSlots);
+        GapAllocator allocator = new GapAllocator(timetable, policy);
+        List<List<Event>> eventsByDay = eventsByDay(days, grid.getSlotsPerDay());
+
+        // Pending task indices in input order: floating ones, and pinned ones per weekday
+        List<Integer> floating = new ArrayList<>();
+        List<List<Integer>> pinned = new ArrayList<>();
+        for (int wd = 0; wd < 7; wd++) {
+            pinned.add(new ArrayList<>());
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            Integer target = tasks.get(i).getTargetDay();
+            if (tasks.get(i).getDate() != null) {
+                // Offered with its weekday's tasks, but only taken on its own date
+                pinned.get(tasks.get(i).getDate().getDayOfWeek().getValue() - 1).add(i);
+            } else if (target == null) {
+                floating.add(i);
+            } else if (target >= 0 && target < 7) {
+                pinned.get(target).add(i);
+            }
+        }
+
+        for (int day = 0; day < days; day++) {
+            if (cancelled.getAsBoolean()) {
+                return null;
+            }
+            // 0. Events, in list order so later ones win shared slots as in the batch run
+            List<Event> own = eventsByDay.get(day);
+            if (own != null) {
+                for (Event event : own) {
+                    int dayIdx = SchedulerService.dayIndexOf(event, startDate, endDate);
+                    timetable.placeAt(event, dayIdx, event.getStartSlot(), true, day, day + 1);
+                }
+                calendar.captureEvents(timetable, day);
+            }
+            // 1-2. Sleep and work
+            template.applyTo(timetable, calendar, day);
+            calendar.resetFreeSlot(timetable, day);
+            // 3. Every pending task that may go on this day, merged back into input order
+            placePending(allocator, calendar, timetable, day, floating, pinned.get(calendar.weekday(day)));
+
+            sink.accept(new ScheduledDay(startDate.plusDays(day), day, snapshot(timetable, day),
+                    timetable.getRegistry(), grid));
+            timetable.release(day);
+            allocator.refresh(day);
+        }
+
+        boolean[] pending = new boolean[tasks.size()];
+        for (int i : floating) {
+            pending[i] = true;
+        }
+        for (List<Integer> list : pinned) {
+            for (int i : list) {
+                pending[i] = true;
+            }
+        }
+        List<Task> unscheduledTasks = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Integer target = tasks.get(i).getTargetDay();
+            // Tasks pinned to a weekday that does not exist were never pending anywhere
+            if (pending[i] || (tasks.get(i).getDate() == null && target != null && (target < 0 || target >= 7))) {
+                unscheduledTasks.add(tasks.get(i));
+            }
+        }
+        return unscheduledTasks;
+    }
+
+    private void placePending(GapAllocator allocator, CalendarMetadata calendar, Timetable timetable, int day,
+                              List<Integer> floating, List<Integer> pinned) {
+        int room = timetable.largestFreeRun(day);
+        int f = 0, p = 0;
+        int keptFloating = 0, keptPinned = 0;
+        while (f < floating.size() || p < pinned.size()) {
+            boolean fromFloating = p >= pinned.size()
+                    || (f < floating.size() && floating.get(f) < pinned.get(p));
+            int index = fromFloating ? floating.get(f++) : pinned.get(p++);
+            Task task = tasks.get(index);
+            boolean placed = task.getDurationInSlots() <= room && calendar.isOwnDay(task, day)
+                    && service.tryPlaceTaskOnDay(allocator, calendar, day, task) >= 0;
+            if (placed) {
+                room = timetable.largestFreeRun(day);
+            } else if (fromFloating) {
+                floating.set(keptFloating++, index);
+            } else {
+                pinned.set(keptPinned++, index);
+            }
+        }
+        floating.subList(keptFloating, floating.size()).clear();
+        pinned.subList(keptPinned, pinned.size()).clear();
+    }
+
+    // Events by the days their slots land on, following the walk and wrap of Timetable.placeAt
+    private List<List<Event>> eventsByDay(int days, int slotsPerDay) {
+        List<List<Event>> byDay = new ArrayList<>(java.util.Collections.nCopies(days, (List<Event>) null));
+        for (Event event : events) {
+            int d = SchedulerService.dayIndexOf(event, startDate, endDate);
+            if (d < 0) continue;
+            int s = event.getStartSlot();
+            for (int i = 0; i < event.getDurationInSlots(); i++, s++) {
+                if (s < 0 || s >= slotsPerDay) {
+                    d = (d + 1) % days;
+                    s = 0;
+                }
+                List<Event> own = byDay.get(d);
+                if (own == null) {
+                    own = new ArrayList<>();
+                    byDay.set(d, own);
+                }
+                if (own.isEmpty() || own.get(own.size() - 1) != event) {
+                    own.add(event);
+                }
+            }
+        }
+        return byDay;
+    }
+
+    private static int[] snapshot(Timetable timetable, int day) {
+        int[] ids = new int[timetable.getSlotsPerDay()];
+        for (int slot = 0; slot < ids.length; slot++) {
+            ids[slot] = timetable.getSlotId(day, slot);
+        }
+        return ids;
+    }
+}
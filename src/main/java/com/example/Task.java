@@ -3,6 +3,8 @@ package com.example;
 public class Task extends Activity {
     private Integer targetDay; // null means any day
     private String preferredTime; // "morning", "evening", or "any"
+    private java.time.LocalDate deadline; // null means no deadline
+    private java.time.LocalDate date; // null means any date; otherwise only this one
 
     public Task(String name, int durationInSlots) {
         super(name, durationInSlots);
@@ -29,4 +31,22 @@ public class Task extends Activity {
     public String getPreferredTime() {
         return preferredTime;
     }
+
+    public java.time.LocalDate getDeadline() {
+        return deadline;
+    }
+
+    // Placements after this date still happen but score worse the later they are
+    public void setDeadline(java.time.LocalDate deadline) {
+        this.deadline = deadline;
+    }
+
+    public java.time.LocalDate getDate() {
+        return date;
+    }
+
+    // Pins the task to one date, overriding targetDay; it is never moved to a fallback day
+    public void setDate(java.time.LocalDate date) {
+        this.date = date;
+    }
 }
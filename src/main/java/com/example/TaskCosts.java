@@ -0,0 +1,140 @@
+package com.example;
+
+/**
+ * Precomputed placement costs of one task, so scoring a candidate placement is a couple
+ * of array reads instead of string comparisons and date arithmetic.
+ *
+ * The cost of putting the task at [startSlot, startSlot + length) of a day is a per-day
+ * part (missed target weekday, days past the deadline) plus the sum of a per-slot cost
+ * vector over the slots it covers (slots outside the preferred window). The slot vector
+ * depends only on the preferred time, so it is shared and kept as prefix sums.
+ */
+final class TaskCosts {
+    static final long MISSED_TARGET_DAY = 100;
+    static final long SLOT_OUTSIDE_PREFERRED = 2;
+    static final long DAY_PAST_DEADLINE = 50;
+
+    // Index of each preferred time in SlotGrid.preferenceCosts()
+    private static final int ANY = 0;
+    private static final int MORNING = 1;
+    private static final int EVENING = 2;
+
+    private final CalendarMetadata calendar;
+    private final SlotCosts slots;
+    private final int targetWeekday; // -1 when any weekday will do
+    private final long deadlineDay;  // Long.MAX_VALUE without a deadline
+    private final long dateDay;      // Long.MIN_VALUE unless pinned to a date
+
+    private TaskCosts(CalendarMetadata calendar, Task task) {
+        this.calendar = calendar;
+        this.slots = slotCosts(calendar.getSlotGrid(), task.getPreferredTime());
+        this.targetWeekday = task.getTargetDay() == null ? -1 : task.getTargetDay();
+        this.deadlineDay = task.getDeadline() == null ? Long.MAX_VALUE : calendar.dayIndexOf(task.getDeadline());
+        this.dateDay = task.getDate() == null ? Long.MIN_VALUE : calendar.dayIndexOf(task.getDate());
+    }
+
+    static TaskCosts of(Task task, CalendarMetadata calendar) {
+        return new TaskCosts(calendar, task);
+    }
+
+    /** Shared slot vector for a preferred time on a grid; unknown values prefer nothing. */
+    static SlotCosts slotCosts(SlotGrid grid, String preferredTime) {
+        SlotCosts[] byPreference = grid.preferenceCosts();
+        if ("morning".equals(preferredTime)) return byPreference[MORNING];
+        if ("evening".equals(preferredTime)) return byPreference[EVENING];
+        return byPreference[ANY];
+    }
+
+    /** Cost of occupying slots [startSlot, startSlot + length) of the day. */
+    long cost(int day, int startSlot, int length) {
+        return dayCost(day) + slots.cost(startSlot, startSlot + length);
+    }
+
+    /** The per-day part alone; a lower bound for any placement on that day. */
+    long dayCost(int day) {
+        long cost = 0;
+        if (targetWeekday >= 0 && calendar.weekday(day) != targetWeekday) {
+            cost += MISSED_TARGET_DAY;
+        }
+        if (dateDay != Long.MIN_VALUE && day != dateDay) {
+            cost += MISSED_TARGET_DAY;
+        }
+        if (day > deadlineDay) {
+            cost += DAY_PAST_DEADLINE * (day - deadlineDay);
+        }
+        return cost;
+    }
+
+    SlotCosts slots() {
+        return slots;
+    }
+
+    /** True when every placement costs the same under both. */
+    boolean sameCostsAs(TaskCosts other) {
+        return slots == other.slots && targetWeekday == other.targetWeekday && deadlineDay == other.deadlineDay
+                && dateDay == other.dateDay;
+    }
+
+    /** Per-slot cost vector of a preferred window, as prefix sums. */
+    static final class SlotCosts {
+        private final int windowStart;
+        private final int windowEnd;
+        private final long[] prefix;
+
+        private SlotCosts(int slotsPerDay, int windowStart, int windowEnd) {
+            this.windowStart = windowStart;
+            this.windowEnd = windowEnd;
+            this.prefix = new long[slotsPerDay + 1];
+            for (int s = 0; s < slotsPerDay; s++) {
+                boolean outside = windowStart >= 0 && (s < windowStart || s > windowEnd);
+                prefix[s + 1] = prefix[s] + (outside ? SLOT_OUTSIDE_PREFERRED : 0);
+            }
+        }
+
+        // Indexed like ANY, MORNING, EVENING above
+        static SlotCosts[] buildFor(SlotGrid grid) {
+            int slots = grid.getSlotsPerDay();
+            return new SlotCosts[]{
+                    new SlotCosts(slots, -1, -1),
+                    new SlotCosts(slots, 0, grid.slotAt(12, 0) - 1),  // 00:00 to 12:00
+                    new SlotCosts(slots, grid.slotAt(16, 0), slots - 1) // 16:00 to 24:00
+            };
+        }
+
+        boolean hasWindow() {
+            return windowStart >= 0;
+        }
+
+        // Inclusive window bounds, only meaningful when hasWindow()
+        int windowStart() {
+            return windowStart;
+        }
+
+        int windowEnd() {
+            return windowEnd;
+        }
+
+        /** Summed cost of slots [from, to). */
+        long cost(int from, int to) {
+            return prefix[to] - prefix[from];
+        }
+
+        /**
+         * Cheapest start for a run of {@code length} slots inside the free gap [gapStart, gapEnd),
+         * earliest on ties, or -1 if it does not fit.
+         */
+        int cheapestStart(int gapStart, int gapEnd, int length) {
+            int best = -1;
+            long bestCost = Long.MAX_VALUE;
+            for (int s = gapStart; s + length <= gapEnd; s++) {
+                long c = cost(s, s + length);
+                if (c < bestCost) {
+                    best = s;
+                    bestCost = c;
+                    if (c == 0) break;
+                }
+            }
+            return best;
+        }
+    }
+}
@@ -2,12 +2,75 @@ package com.example;
 
 public class Timetable {
     private final int days;
-    private static final int SLOTS_PER_DAY = 96; // 24 hours * 4 (15-minute slots)
-    private Activity[][] slots;
+    private final SlotGrid grid;
+    // Copied out of the grid, since nearly every method bounds a loop or a bitmap scan by them
+    private final int slotsPerDay;
+    private final int wordsPerDay;
+    // Slot contents as ids from the registry (0 = free) rather than object references
+    private final ActivityRegistry registry;
+    private final int[][] slotIds;
+    // Occupancy bitmap kept in step with slotIds: bit s of occupancy[day] is set when slotIds[day][s] != 0
+    private final long[][] occupancy;
+    // Largest free block per day, built on first use and updated on every write after that
+    private DayCapacityTree capacity;
 
     public Timetable(int days) {
+        this(days, SlotGrid.QUARTER_HOUR);
+    }
+
+    public Timetable(int days, SlotGrid grid) {
+        this(days, new ActivityRegistry(), grid);
+    }
+
+    public Timetable(int days, ActivityRegistry registry) {
+        this(days, registry, SlotGrid.QUARTER_HOUR);
+    }
+
+    public Timetable(int days, ActivityRegistry registry, SlotGrid grid) {
+        this(days, registry, grid, true);
+    }
+
+    // allocateRows=false leaves every day row null for subclasses that materialize days on demand
+    protected Timetable(int days, ActivityRegistry registry, SlotGrid grid, boolean allocateRows) {
+        this(days, registry, grid, allocateRows, true);
+    }
+
+    private Timetable(int days, ActivityRegistry registry, SlotGrid grid, boolean allocateRows, boolean owner) {
+        if (owner) {
+            registry.addOwner();
+        }
         this.days = days;
-        this.slots = new Activity[days][SLOTS_PER_DAY];
+        this.registry = registry;
+        this.grid = grid;
+        this.slotsPerDay = grid.getSlotsPerDay();
+        this.wordsPerDay = grid.wordsPerDay();
+        this.slotIds = allocateRows ? new int[days][slotsPerDay] : new int[days][];
+        this.occupancy = allocateRows ? new long[days][wordsPerDay] : new long[days][];
+    }
+
+    /**
+     * A timetable on {@code registry} that does not count as one of its owners (see
+     * {@link ActivityRegistry#release}). Only for layers that hold nothing but fixed
+     * activities, which are never released, such as the compiled weekly template.
+     */
+    static Timetable fixedLayer(int days, ActivityRegistry registry, SlotGrid grid) {
+        return new Timetable(days, registry, grid, true, false);
+    }
+
+    public ActivityRegistry getRegistry() {
+        return registry;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public SlotGrid getSlotGrid() {
+        return grid;
+    }
+
+    public int getSlotsPerDay() {
+        return slotsPerDay;
     }
 
     public boolean placeActivity(Activity activity) {
@@ -18,24 +81,12 @@ public class Timetable {
 
     public boolean placeTaskIfPossible(Task task) {
         int needed = task.getDurationInSlots();
-        for (int day = 0; day < days; day++) {
-            for (int start = 0; start <= SLOTS_PER_DAY - needed; start++) {
-                boolean fits = true;
-                for (int i = 0; i < needed; i++) {
-                    if (slots[day][start + i] != null) {
-                        fits = false;
-                        break;
-                    }
-                }
-                if (fits) {
-                    for (int i = 0; i < needed; i++) {
-                        slots[day][start + i] = task;
-                    }
-                    return true;
-                }
-            }
+        int day = firstDayWithRoom(0, needed);
+        if (day < 0) {
+            return false;
         }
-        return false;
+        fill(day, SlotBitmap.findClearRun(occupancyRow(day), 0, slotsPerDay, needed), needed, task);
+        return true;
     }
 
     public void placeAt(Activity activity, int day, int startSlot) {
@@ -44,24 +95,212 @@ public class Timetable {
 
     // Overloaded: force=true allows overwriting existing activities (for events)
     public void placeAt(Activity activity, int day, int startSlot, boolean force) {
+        placeAt(activity, day, startSlot, force, 0, days);
+    }
+
+    /**
+     * Same walk as {@link #placeAt(Activity, int, int, boolean)}, including the wrap onto the
+     * next day, but only slots on days [fromDay, toDay) are written. Lets callers that own
+     * disjoint day ranges place overlapping inputs independently.
+     */
+    void placeAt(Activity activity, int day, int startSlot, boolean force, int fromDay, int toDay) {
         int duration = activity.getDurationInSlots();
+        int id = registry.intern(activity);
         int d = day;
         int s = startSlot;
+        // Day written to since the walk last moved on; its capacity is refreshed once, on leaving it
+        int touched = -1;
         for (int i = 0; i < duration; i++) {
-            if (d < 0 || d >= days || s < 0 || s >= SLOTS_PER_DAY) {
+            if (d < 0 || d >= days || s < 0 || s >= slotsPerDay) {
                 // Wrap to next day if slot overflows
                 d = (d + 1) % days;
                 s = 0;
             }
-            if (!force && slots[d][s] != null) {
+            if (d < fromDay || d >= toDay) {
+                s++;
+                continue;
+            }
+            if (d != touched) {
+                if (touched >= 0) {
+                    dayChanged(touched);
+                }
+                touched = -1;
+            }
+            if (!force && slotRow(d)[s] != ActivityRegistry.FREE) {
+                if (touched >= 0) {
+                    dayChanged(touched);
+                }
                 throw new IllegalStateException("Slot already occupied at day " + d + ", slot " + s);
             }
-            slots[d][s] = activity;
+            materialize(d);
+            slotRow(d)[s] = id;
+            SlotBitmap.set(occupancyRow(d), s);
+            touched = d;
             s++;
         }
+        if (touched >= 0) {
+            dayChanged(touched);
+        }
+    }
+
+    public Activity getActivity(int day, int slot) {
+        return registry.get(slotRow(day)[slot]);
+    }
+
+    /** Registry id of the activity in a slot, {@link ActivityRegistry#FREE} when empty. */
+    public int getSlotId(int day, int slot) {
+        return slotRow(day)[slot];
+    }
+
+    /** First free slot at or after {@code fromSlot}, or slots per day if the rest of the day is taken. */
+    public int nextFreeSlot(int day, int fromSlot) {
+        return SlotBitmap.nextClearBit(occupancyRow(day), fromSlot, slotsPerDay);
+    }
+
+    public boolean isFree(int day, int slot) {
+        return !SlotBitmap.get(occupancyRow(day), slot);
+    }
+
+    /**
+     * Returns true when slots [startSlot, startSlot + length) of the day are all free.
+     * Ranges running past the end of the day never fit.
+     */
+    public boolean isRangeFree(int day, int startSlot, int length) {
+        if (startSlot < 0 || startSlot + length > slotsPerDay) return false;
+        return SlotBitmap.isClear(occupancyRow(day), startSlot, startSlot + length);
+    }
+
+    /**
+     * Returns the first slot in the inclusive window [windowStart, windowEnd] where
+     * {@code length} consecutive free slots fit, or -1 if the window has no such run.
+     */
+    public int findFreeRun(int day, int windowStart, int windowEnd, int length) {
+        return SlotBitmap.findClearRun(occupancyRow(day), windowStart, windowEnd + 1, length);
+    }
+
+    public int largestFreeRun(int day) {
+        return SlotBitmap.largestClearRun(occupancyRow(day), slotsPerDay);
+    }
+
+    /**
+     * Returns the first day at or after {@code fromDay} with at least {@code length}
+     * consecutive free slots, or -1 if no remaining day can hold it.
+     */
+    public int firstDayWithRoom(int fromDay, int length) {
+        if (fromDay >= days) return -1;
+        if (length <= 0) return Math.max(fromDay, 0);
+        if (capacity == null) {
+            capacity = new DayCapacityTree(days);
+            for (int day = 0; day < days; day++) {
+                capacity.set(day, largestFreeRun(day));
+            }
+        }
+        int day = capacity.firstAtLeast(fromDay, length);
+        return day < days ? day : -1;
+    }
+
+    /**
+     * Discards the cross-day capacity index. Callers that write disjoint days from several
+     * threads drop it first, since the shared tree cannot take concurrent updates; the
+     * next {@link #firstDayWithRoom} call rebuilds it.
+     */
+    void dropCapacityIndex() {
+        capacity = null;
+    }
+
+    private void dayChanged(int day) {
+        if (capacity != null) {
+            capacity.set(day, largestFreeRun(day));
+        }
+    }
+
+    // Raw occupancy words for a day; shared with the allocators in this package, never modify
+    long[] occupancy(int day) {
+        return occupancyRow(day);
+    }
+
+    public void setSlot(int day, int slot, Activity activity) {
+        materialize(day);
+        slotRow(day)[slot] = registry.intern(activity);
+        if (activity == null) {
+            SlotBitmap.clear(occupancyRow(day), slot);
+        } else {
+            SlotBitmap.set(occupancyRow(day), slot);
+        }
+        dayChanged(day);
+    }
+
+    /** Writes {@code activity} into slots [startSlot, startSlot + length) of the day. */
+    public void fill(int day, int startSlot, int length, Activity activity) {
+        fillId(day, startSlot, length, registry.intern(activity));
+    }
+
+    // Same as fill with an id already taken from this timetable's registry
+    void fillId(int day, int startSlot, int length, int id) {
+        materialize(day);
+        java.util.Arrays.fill(slotRow(day), startSlot, startSlot + length, id);
+        if (id == ActivityRegistry.FREE) {
+            SlotBitmap.clear(occupancyRow(day), startSlot, startSlot + length);
+        } else {
+            SlotBitmap.set(occupancyRow(day), startSlot, startSlot + length);
+        }
+        dayChanged(day);
     }
 
+    /**
+     * Overwrites {@code targetDay} with a bulk copy of {@code sourceDay} from {@code source}.
+     * Both timetables must share one registry so the slot ids mean the same thing.
+     */
+    public void copyDay(Timetable source, int sourceDay, int targetDay) {
+        if (source.registry != registry) {
+            throw new IllegalArgumentException("Cannot copy slot ids between timetables with different registries");
+        }
+        if (source.slotsPerDay != slotsPerDay) {
+            throw new IllegalArgumentException("Cannot copy days between " + source.grid + " and " + grid);
+        }
+        materialize(targetDay);
+        System.arraycopy(source.slotRow(sourceDay), 0, slotRow(targetDay), 0, slotsPerDay);
+        System.arraycopy(source.occupancyRow(sourceDay), 0, occupancyRow(targetDay), 0, wordsPerDay);
+        dayChanged(targetDay);
+    }
+
+    /**
+     * Snapshot of the slot grid as activity references. Builds a new array on every
+     * call, so prefer {@link #getActivity} in loops; writes to it are not reflected back.
+     */
     public Activity[][] getSlots() {
-        return slots;
+        Activity[][] view = new Activity[days][slotsPerDay];
+        for (int day = 0; day < days; day++) {
+            int[] row = slotRow(day);
+            for (int slot = 0; slot < slotsPerDay; slot++) {
+                view[day][slot] = registry.get(row[slot]);
+            }
+        }
+        return view;
+    }
+
+    // Storage hooks. Reads go through slotRow/occupancyRow; every write calls materialize(day)
+    // first, after which both rows of that day belong to this timetable and may be written.
+
+    protected int[] slotRow(int day) {
+        return slotIds[day];
+    }
+
+    protected long[] occupancyRow(int day) {
+        return occupancy[day];
+    }
+
+    protected void materialize(int day) {
+        // Dense timetables own every row from the start
+    }
+
+    // Lets subclasses that start with null rows hand a day its own storage
+    protected final void installRows(int day, int[] ids, long[] occupancyWords) {
+        slotIds[day] = ids;
+        occupancy[day] = occupancyWords;
+    }
+
+    protected final boolean hasRows(int day) {
+        return slotIds[day] != null;
     }
 }
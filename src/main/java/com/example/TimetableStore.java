@@ -0,0 +1,43 @@
+package com.example;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How {@link ActivityRepository} lays saved timetable days out in the database. Each
+ * method runs on a session the repository holds, and writes run inside its transaction.
+ * Activity ids are database ids; 0 marks a free slot.
+ */
+interface TimetableStore {
+    /** Creates the store's tables, bringing older layouts of them forward. */
+    void createTables(ConnectionManager.Session session) throws SQLException;
+
+    /** The store's keyed queries by name, for {@link QueryPlans} to check. Listing all dates is not one. */
+    Map<String, String> hotQueries();
+
+    /** A writer for one save. */
+    Writer writer(ConnectionManager.Session session);
+
+    void deleteRange(ConnectionManager.Session session, String startDate, String endDate) throws SQLException;
+
+    /** Dates that hold anything, in order. */
+    List<String> dates(ConnectionManager.Session session) throws SQLException;
+
+    /** The day's runs of one activity, in slot order. */
+    List<ActivityRepository.TimetableEntry> day(ConnectionManager.Session session, String date) throws SQLException;
+
+    /** Hands every stored day from {@code startDate} to {@code endDate} to the visitor, in date order. */
+    void forEachDay(ConnectionManager.Session session, String startDate, String endDate,
+                    ActivityRepository.DayVisitor visitor) throws SQLException;
+
+    interface Writer {
+        void deleteDay(String date) throws SQLException;
+
+        /** Stores a day; {@code activityIds} holds one id per slot and may be reused after the call. */
+        void addDay(String date, SlotGrid grid, int[] activityIds) throws SQLException;
+
+        /** Writes anything still buffered and returns the number of rows written. */
+        long finish() throws SQLException;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example;
+
+/**
+ * The recurring sleep/work layer compiled once into a 7-day template (index 0=Mon).
+ * Days without events receive a bulk copy of their weekday's row; days with events
+ * are laid out slot by slot so sleep and work still yield to the event.
+ */
+final class WeeklyTemplate {
+    private final int sleepDurationSlots;
+    private final int workStartSlot;
+    private final int workDurationSlots;
+    private final FixedActivity sleep;
+    private final FixedActivity work;
+    private final Timetable week;
+    // Sleep goes into [eveningSleepStart, end of day) first, then [0, morningSleepEnd)
+    private final int eveningSleepStart;
+    private final int morningSleepEnd;
+
+    private WeeklyTemplate(ActivityRegistry registry, SlotGrid grid,
+                           int sleepDurationSlots, int workStartSlot, int workDurationSlots) {
+        this.sleepDurationSlots = sleepDurationSlots;
+        this.workStartSlot = workStartSlot;
+        this.workDurationSlots = workDurationSlots;
+        // One shared instance per fixed activity; the timetable stores its id in every slot
+        this.sleep = registry.fixed("Sleep", 1);
+        this.work = registry.fixed("Work", workDurationSlots);
+        this.week = Timetable.fixedLayer(7, registry, grid);
+        this.eveningSleepStart = grid.slotAt(20, 0);
+        this.morningSleepEnd = grid.slotAt(4, 0);
+    }
+
+    static WeeklyTemplate compile(ActivityRegistry registry, CalendarMetadata calendar,
+                                  int sleepDurationSlots, int workStartSlot, int workDurationSlots) {
+        WeeklyTemplate template = new WeeklyTemplate(registry, calendar.getSlotGrid(),
+                sleepDurationSlots, workStartSlot, workDurationSlots);
+        for (int weekday = 0; weekday < 7; weekday++) {
+            template.layOutDay(template.week, weekday, calendar.isWorkdayOfWeek(weekday));
+        }
+        return template;
+    }
+
+    /** This template compiled again on {@code registry}, for timetables built on that one. */
+    WeeklyTemplate on(ActivityRegistry registry, CalendarMetadata calendar) {
+        return compile(registry, calendar, sleepDurationSlots, workStartSlot, workDurationSlots);
+    }
+
+    /** The compiled week, one day per weekday. */
+    Timetable week() {
+        return week;
+    }
+
+    /** Places sleep and work on one day of the timetable. */
+    void applyTo(Timetable timetable, CalendarMetadata calendar, int day) {
+        if (calendar.hasEvent(day)) {
+            layOutDay(timetable, day, calendar.isWorkday(day));
+        } else {
+            timetable.copyDay(week, calendar.weekday(day), day);
+        }
+    }
+
+    private void layOutDay(Timetable timetable, int day, boolean workday) {
+        // 1. Place sleep (next priority, only if not occupied by event)
+        int halfSleep = sleepDurationSlots / 2;
+        // Before midnight: 20:00-00:00
+        int sleepPlaced = 0;
+        for (int s = eveningSleepStart; s < timetable.getSlotsPerDay() && sleepPlaced < halfSleep; s++) {
+            if (timetable.isFree(day, s)) {
+                timetable.setSlot(day, s, sleep);
+                sleepPlaced++;
+            }
+        }
+        // After midnight: 00:00-04:00
+        for (int s = 0; s < morningSleepEnd && sleepPlaced < sleepDurationSlots; s++) {
+            if (timetable.isFree(day, s)) {
+                timetable.setSlot(day, s, sleep);
+                sleepPlaced++;
+            }
+        }
+
+        // 2. Place work (repeat every week, only if not occupied by event or sleep)
+        if (workday && timetable.isRangeFree(day, workStartSlot, workDurationSlots)) {
+            timetable.fill(day, workStartSlot, workDurationSlots, work);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.example.ui;
 
 import com.example.Activity;
 import com.example.Event;
+import com.example.SlotGrid;
 import com.example.Task;
 import javafx.animation.ScaleTransition;
 import javafx.beans.binding.Bindings;
@@ -25,8 +26,15 @@ public class ActivityCard extends VBox {
     private final Label title = new Label();
     private final Label meta = new Label();
     private final Label chip = new Label();
+    // Grid the shown activities' durations and start slots are counted on
+    private final SlotGrid grid;
 
     public ActivityCard() {
+        this(SlotGrid.QUARTER_HOUR);
+    }
+
+    public ActivityCard(SlotGrid grid) {
+        this.grid = grid;
         getStyleClass().add("activity-card");
         setSpacing(12);
         setPadding(new Insets(18));
@@ -99,8 +107,8 @@ public class ActivityCard extends VBox {
         node.addEventHandler(MouseEvent.MOUSE_EXITED, e -> exit.playFromStart());
     }
 
-    private static String formatDuration(int slots) {
-        int minutes = slots * 15;
+    private String formatDuration(int slots) {
+        int minutes = grid.minuteOfDay(slots);
         int hours = minutes / 60;
         int mins = minutes % 60;
         if (hours > 0 && mins > 0) {
@@ -111,10 +119,8 @@ public class ActivityCard extends VBox {
         return mins + " minutes";
     }
 
-    private static String formatSlot(int slot) {
-        int hour = slot / 4;
-        int minute = (slot % 4) * 15;
-        return String.format("%02d:%02d", hour, minute);
+    private String formatSlot(int slot) {
+        return grid.formatSlot(slot);
     }
 
     private static String prettyTime(String preferredTime) {
@@ -3,10 +3,16 @@ package com.example.ui;
 import com.example.Activity;
 import com.example.ActivityRepository;
 import com.example.Event;
+import com.example.GenerationCache;
+import com.example.GenerationControl;
+import com.example.GenerationKey;
 import com.example.ScheduleResult;
+import com.example.ScheduleStream;
 import com.example.SchedulerService;
+import com.example.SlotGrid;
 import com.example.Task;
 import com.example.Timetable;
+import javafx.application.Platform;
 import javafx.beans.property.BooleanProperty;
 import javafx.beans.property.SimpleBooleanProperty;
 import javafx.beans.property.SimpleStringProperty;
@@ -16,8 +22,11 @@ import javafx.collections.ObservableList;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.SortedSet;
+import java.util.function.Consumer;
 
 /**
  * Central state holder for the Scheduler UI.  Keeps the application data in
@@ -28,13 +37,25 @@ public class SchedulerViewModel {
     private final ActivityRepository repository = new ActivityRepository();
 
     private final BooleanProperty darkMode = new SimpleBooleanProperty(false);
+    // Inputs of the next generation; they stay after it, so edits to them reach the schedule
     private final ObservableList<Task> tasks = FXCollections.observableArrayList();
     private final ObservableList<Event> events = FXCollections.observableArrayList();
     private final ObservableList<String> timetableDates = FXCollections.observableArrayList();
     private final ObservableList<ActivityRepository.TimetableEntry> timetableEntries = FXCollections.observableArrayList();
     private final StringProperty selectedDate = new SimpleStringProperty();
+    // Last generated schedule, patched in place by the incremental edits below. Only the
+    // FX thread touches it; generations hand their outcome over with Platform.runLater
+    private final SchedulerService scheduler = new SchedulerService();
+    private ScheduleResult lastResult;
+    private LocalDate lastStartDate;
+    // Earlier generations by input fingerprint; lastKey is the one lastResult came from
+    private final GenerationCache generationCache = new GenerationCache(8);
+    private GenerationKey lastKey;
+    private ActivityRepository.SaveStats lastSaveStats;
 
     public SchedulerViewModel() {
+        // 15-minute slots unless the installation asks for another grid, e.g. -Dismartschedule.slotMinutes=5
+        scheduler.setSlotGrid(SlotGrid.ofMinutes(Integer.getInteger("ismartschedule.slotMinutes", 15)));
         refreshTimetableDates();
         selectedDate.addListener((obs, oldDate, newDate) -> {
             if (newDate != null) {
@@ -77,22 +98,41 @@ public class SchedulerViewModel {
         return selectedDate;
     }
 
-    public void refreshTimetableDates() {
-        timetableDates.setAll(repository.getAllTimetableDates());
+    /** Rows and throughput of the last timetable save, or null before the first one. */
+    public ActivityRepository.SaveStats getLastSaveStats() {
+        return lastSaveStats;
+    }
+
+    /** Grid that every slot number and duration in slots coming from the UI is counted on. */
+    public SlotGrid getSlotGrid() {
+        return scheduler.getSlotGrid();
     }
 
     /**
-     * Clears transient UI data after a successful generation.
+     * Switches the grid for tasks, events and generations from now on. Tasks and events
+     * already composed keep their slot counts, so change it before composing.
      */
-    public void resetComposerState() {
-        tasks.clear();
-        events.clear();
+    public void setSlotGrid(SlotGrid slotGrid) {
+        if (!slotGrid.equals(scheduler.getSlotGrid())) {
+            scheduler.setSlotGrid(slotGrid);
+            // The kept result is on the old grid and can no longer be edited in place
+            lastResult = null;
+            lastKey = null;
+        }
+    }
+
+    public void refreshTimetableDates() {
+        timetableDates.setAll(repository.getAllTimetableDates());
     }
 
     /**
      * Generates a timetable using the {@link SchedulerService} and persists the
      * outcome via {@link ActivityRepository}. The resulting dates are reloaded so
      * the calendar view picks up new entries automatically.
+     *
+     * Inputs identical to a recent generation reuse its result instead of scheduling
+     * again, and when the database still holds that generation it is not rewritten.
+     * Schedules the current tasks and events; call it on the FX thread.
      */
     public boolean generateAndPersistSchedule(List<Integer> workdays,
                                             int workStartSlot,
@@ -100,15 +140,121 @@ public class SchedulerViewModel {
                                             int sleepDurationSlots,
                                             LocalDate startDate,
                                             LocalDate endDate) {
+        return generateAndPersistSchedule(workdays, workStartSlot, workDurationSlots, sleepDurationSlots,
+                new ArrayList<>(tasks), new ArrayList<>(events), startDate, endDate, new GenerationControl());
+    }
+
+    /**
+     * As above, for the given copies of the tasks and events and under a control that can
+     * cancel the generation or report its progress. Safe to run off the FX thread as long
+     * as the copies were taken on it and no edit below runs meanwhile; the new schedule
+     * becomes the one they edit once the FX thread gets to it. A cancelled or overdue
+     * generation throws {@link java.util.concurrent.CancellationException} before anything
+     * in the database is touched.
+     */
+    public boolean generateAndPersistSchedule(List<Integer> workdays,
+                                            int workStartSlot,
+                                            int workDurationSlots,
+                                            int sleepDurationSlots,
+                                            List<Task> taskSnapshot,
+                                            List<Event> eventSnapshot,
+                                            LocalDate startDate,
+                                            LocalDate endDate,
+                                            GenerationControl control) {
         if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
             return false;
         }
 
-        SchedulerService scheduler = new SchedulerService();
-        List<Task> taskSnapshot = new ArrayList<>(tasks);
-        List<Event> eventSnapshot = new ArrayList<>(events);
+        GenerationKey key = GenerationKey.of(scheduler, workdays, workStartSlot, workDurationSlots,
+                sleepDurationSlots, taskSnapshot, eventSnapshot, startDate, endDate);
+        ScheduleResult result = generationCache.get(key);
+        boolean saved = key.equals(repository.getSavedGeneration());
 
-        ScheduleResult result = scheduler.generateTimetable(
+        if (result == null && !saved) {
+            result = scheduler.generateTimetable(
+                    workdays,
+                    workStartSlot,
+                    workDurationSlots,
+                    sleepDurationSlots,
+                    taskSnapshot,
+                    eventSnapshot,
+                    startDate,
+                    endDate,
+                    control
+            );
+            generationCache.put(key, result);
+        }
+
+        // The database already holds this generation: nothing to schedule or rewrite. After
+        // a restart that is known without the result itself, so in-place edits wait for the
+        // next real generation.
+        if (!saved) {
+            repository.deleteTimetableForDateRange("0000-01-01", "9999-12-31");
+
+            List<Activity> allActivities = new ArrayList<>();
+            allActivities.add(new com.example.FixedActivity("Sleep", sleepDurationSlots));
+            allActivities.add(new com.example.FixedActivity("Work", workDurationSlots));
+            allActivities.addAll(taskSnapshot);
+            allActivities.addAll(eventSnapshot);
+
+            Map<Activity, Integer> ids = repository.addActivities(allActivities);
+            Timetable timetable = result.getTimetable();
+            ActivityRepository.SaveStats stats = repository.saveTimetable(timetable, startDate, endDate,
+                    namesToIds(ids), ids);
+            repository.setSavedGeneration(key);
+            onFxThread(() -> lastSaveStats = stats);
+        }
+        ScheduleResult kept = result;
+        onFxThread(() -> {
+            lastResult = kept;
+            lastKey = kept == null ? null : key;
+            lastStartDate = startDate;
+
+            refreshTimetableDates();
+            selectedDate.set(endDate.toString());
+            timetableEntries.setAll(repository.getTimetableForDate(selectedDate.get()));
+        });
+        return true;
+    }
+
+    /**
+     * Like {@link #generateAndPersistSchedule}, but the days are written to the database
+     * while later days are still being generated, holding at most {@code window} finished
+     * days in memory. Meant for long ranges where memory matters more than editing: the
+     * result is not kept, so the incremental edits below are unavailable until the next
+     * regular generation. Inputs that the regular path has already generated, cached or
+     * saved go through it instead, keeping its result and the database as they are. Takes
+     * copies of the tasks and events like the regular path, and runs off the FX thread.
+     *
+     * Each day is committed as it is saved and then shows up in {@link #getTimetableDates}
+     * (and in {@link #getTimetableEntries} while it is the selected date), starting from
+     * {@code startDate}; {@code onDaySaved} hears its date on the saving thread. Cancelling
+     * {@code control} stops before the next day with a
+     * {@link java.util.concurrent.CancellationException}, keeping the days saved so far.
+     */
+    public boolean generateAndPersistStreaming(List<Integer> workdays,
+                                               int workStartSlot,
+                                               int workDurationSlots,
+                                               int sleepDurationSlots,
+                                               List<Task> taskSnapshot,
+                                               List<Event> eventSnapshot,
+                                               LocalDate startDate,
+                                               LocalDate endDate,
+                                               int window,
+                                               GenerationControl control,
+                                               Consumer<LocalDate> onDaySaved) {
+        if (startDate == null || endDate == null || startDate.isAfter(endDate)) {
+            return false;
+        }
+
+        GenerationKey key = GenerationKey.of(scheduler, workdays, workStartSlot, workDurationSlots,
+                sleepDurationSlots, taskSnapshot, eventSnapshot, startDate, endDate);
+        if (generationCache.get(key) != null || key.equals(repository.getSavedGeneration())) {
+            return generateAndPersistSchedule(workdays, workStartSlot, workDurationSlots, sleepDurationSlots,
+                    taskSnapshot, eventSnapshot, startDate, endDate, control);
+        }
+
+        ScheduleStream stream = scheduler.streamTimetable(
                 workdays,
                 workStartSlot,
                 workDurationSlots,
@@ -116,29 +262,115 @@ public class SchedulerViewModel {
                 taskSnapshot,
                 eventSnapshot,
                 startDate,
-                endDate
+                endDate,
+                window
         );
 
-        ActivityRepository repo = new ActivityRepository();
-        repo.deleteTimetableForDateRange("0000-01-01", "9999-12-31");
+        repository.deleteTimetableForDateRange("0000-01-01", "9999-12-31");
+        Platform.runLater(() -> {
+            lastResult = null;
+            lastKey = null;
+            timetableDates.clear();
+            selectedDate.set(startDate.toString());
+        });
 
         List<Activity> allActivities = new ArrayList<>();
         allActivities.add(new com.example.FixedActivity("Sleep", sleepDurationSlots));
         allActivities.add(new com.example.FixedActivity("Work", workDurationSlots));
         allActivities.addAll(taskSnapshot);
         allActivities.addAll(eventSnapshot);
+        Map<Activity, Integer> ids = repository.addActivities(allActivities);
+        ActivityRepository.SaveStats stats = repository.saveTimetable(stream, namesToIds(ids), control, day -> {
+            String date = day.getDate().toString();
+            Platform.runLater(() -> showSavedDay(date));
+            onDaySaved.accept(day.getDate());
+        });
 
-        for (Activity activity : allActivities) {
-            repo.addActivity(activity);
+        // Queued behind the last saved day
+        Platform.runLater(() -> {
+            lastSaveStats = stats;
+            refreshTimetableDates();
+            selectedDate.set(endDate.toString());
+            timetableEntries.setAll(repository.getTimetableForDate(selectedDate.get()));
+        });
+        return true;
+    }
+
+    // Right away on the FX thread, otherwise queued for it
+    private static void onFxThread(Runnable update) {
+        if (Platform.isFxApplicationThread()) {
+            update.run();
+        } else {
+            Platform.runLater(update);
         }
+    }
 
-        Map<String, Integer> nameToId = repo.getActivityNameToIdMap();
-        Timetable timetable = result.getTimetable();
-        repo.saveTimetable(timetable, startDate, endDate, nameToId);
+    // Days arrive in date order, so a new one goes at the end
+    private void showSavedDay(String date) {
+        if (!timetableDates.contains(date)) {
+            timetableDates.add(date);
+        }
+        if (date.equals(selectedDate.get())) {
+            timetableEntries.setAll(repository.getTimetableForDate(date));
+        }
+    }
 
-        refreshTimetableDates();
-        selectedDate.set(endDate != null ? endDate.toString() : null);
-        timetableEntries.setAll(repository.getTimetableForDate(selectedDate.get()));
+    /**
+     * Adds a task to the composer and, when the last generated schedule can be edited in
+     * place, to that schedule without regenerating it; only the days the task lands on are
+     * rewritten in the database. Returns whether the schedule was edited. Like the other
+     * edits, call it on the FX thread and not while a generation runs.
+     */
+    public boolean addTask(Task task) {
+        tasks.add(task);
+        if (lastResult == null) {
+            return false;
+        }
+        repository.addActivity(task);
+        persistChangedDays(scheduler.addTask(lastResult, task));
+        return true;
+    }
+
+    /** Removes a task from the composer and, like {@link #addTask}, from the last generated schedule. */
+    public boolean removeTask(Task task) {
+        tasks.remove(task);
+        if (lastResult == null) {
+            return false;
+        }
+        persistChangedDays(scheduler.removeTask(lastResult, task));
         return true;
     }
+
+    /**
+     * Removes an event from the composer and, like {@link #addTask}, from the last generated
+     * schedule. Events added since that generation are not in it and only leave the composer.
+     */
+    public boolean removeEvent(Event event) {
+        events.remove(event);
+        if (lastResult == null) {
+            return false;
+        }
+        persistChangedDays(scheduler.removeEvent(lastResult, event));
+        return true;
+    }
+
+    private void persistChangedDays(SortedSet<Integer> changedDays) {
+        // The result was edited in place and no longer matches the inputs it was cached under
+        generationCache.remove(lastKey);
+        lastKey = null;
+        lastSaveStats = repository.saveTimetableDays(lastResult.getTimetable(), lastStartDate, changedDays,
+                repository.getActivityNameToIdMap());
+        refreshTimetableDates();
+        if (selectedDate.get() != null) {
+            timetableEntries.setAll(repository.getTimetableForDate(selectedDate.get()));
+        }
+    }
+
+    // Same answers as ActivityRepository#getActivityNameToIdMap for freshly added
+    // activities: the latest (highest) id of a name wins
+    private static Map<String, Integer> namesToIds(Map<Activity, Integer> ids) {
+        Map<String, Integer> byName = new HashMap<>();
+        ids.forEach((activity, id) -> byName.merge(activity.getName(), id, Math::max));
+        return byName;
+    }
 }
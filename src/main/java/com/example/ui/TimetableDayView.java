@@ -1,6 +1,7 @@
 package com.example.ui;
 
 import com.example.ActivityRepository;
+import com.example.SlotGrid;
 import javafx.animation.Timeline;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
@@ -64,23 +65,23 @@ public class TimetableDayView extends VBox {
         }
         LocalDate today = LocalDate.now();
         LocalTime now = LocalTime.now();
-        int currentSlot = now.getHour() * 4 + now.getMinute() / 15;
 
-        // Merge consecutive slots with the same activity
+        // Merge adjacent spans with the same activity name
         int n = entries.size();
         int i = 0;
         while (i < n) {
             ActivityRepository.TimetableEntry startEntry = entries.get(i);
+            SlotGrid grid = startEntry.slotGrid;
+            int currentSlot = grid.slotAt(now.getHour(), now.getMinute());
             int startSlot = startEntry.slot;
             String activityName = startEntry.activityName;
             String activityType = startEntry.activityType;
             SlotCategory category = classifySlot(activityName, activityType);
             int j = i + 1;
-            while (j < n && entries.get(j).activityName.equals(activityName) && entries.get(j).slot == entries.get(j - 1).slot + 1) {
+            while (j < n && entries.get(j).activityName.equals(activityName) && entries.get(j).slot == entries.get(j - 1).endSlot) {
                 j++;
             }
-            int endSlotInclusive = entries.get(j - 1).slot;
-            int endSlotExclusive = endSlotInclusive + 1;
+            int endSlotExclusive = entries.get(j - 1).endSlot;
 
             VBox slot = new VBox(6);
             slot.getStyleClass().add("schedule-slot");
@@ -100,13 +101,13 @@ public class TimetableDayView extends VBox {
                 }
             }
 
-            Label startTime = new Label(formatSlot(startSlot));
+            Label startTime = new Label(grid.formatSlot(startSlot));
             startTime.getStyleClass().add("title");
             Label iconLabel = new Label(getIconFor(category, activityName));
             iconLabel.getStyleClass().add("slot-icon");
             Label activity = new Label(activityName);
             activity.getStyleClass().add("meta");
-            Label endTime = new Label(formatSlot(endSlotExclusive));
+            Label endTime = new Label(grid.formatSlot(endSlotExclusive));
             endTime.getStyleClass().add("title");
             if (darkMode) {
                 for (Label lbl : new Label[]{startTime, activity, iconLabel, endTime}) {
@@ -182,12 +183,6 @@ public class TimetableDayView extends VBox {
         };
     }
 
-    private static String formatSlot(int slot) {
-        int hour = slot / 4;
-        int minute = (slot % 4) * 15;
-        return String.format("%02d:%02d", hour, minute);
-    }
-
     private void applyPulseAnimation(VBox slot) {
         // Subtle glassy sweep with red border for current activity
         Object existing = slot.getProperties().get("gradientTimeline");
@@ -0,0 +1,95 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class ActivityRegistryTest {
+    @Test
+    void holdsMoreActivitiesThanAShortCanCount() {
+        ActivityRegistry registry = new ActivityRegistry();
+        Timetable timetable = new Timetable(1, registry);
+        Task last = null;
+        for (int i = 0; i <= Short.MAX_VALUE; i++) {
+            last = new Task("T" + i, 1);
+            registry.intern(last);
+        }
+
+        timetable.fill(0, 0, 1, last);
+
+        assertEquals(Short.MAX_VALUE + 1, timetable.getSlotId(0, 0));
+        assertSame(last, timetable.getActivity(0, 0));
+    }
+
+    @Test
+    void releasedIdsAreHandedOutAgain() {
+        ActivityRegistry registry = new ActivityRegistry();
+        Task first = new Task("first", 1);
+        Task second = new Task("second", 1);
+        int id = registry.intern(first);
+        registry.intern(second);
+
+        registry.release(first);
+        Task third = new Task("third", 1);
+
+        assertEquals(ActivityRegistry.FREE, registry.idOf(first));
+        assertEquals(id, registry.intern(third));
+        assertSame(third, registry.get(id));
+        assertEquals(3, registry.size());
+    }
+
+    @Test
+    void releasingAnUnknownActivityChangesNothing() {
+        ActivityRegistry registry = new ActivityRegistry();
+        Task task = new Task("task", 1);
+
+        registry.release(task);
+
+        assertEquals(1, registry.size());
+        assertNull(registry.get(ActivityRegistry.FREE));
+    }
+
+    @Test
+    void releaseLeavesAnotherTimetableOnTheRegistryAlone() {
+        ActivityRegistry registry = new ActivityRegistry();
+        Timetable edited = new Timetable(1, registry);
+        Timetable other = new Timetable(1, registry);
+        Task shared = new Task("shared", 2);
+        edited.fill(0, 0, 2, shared);
+        other.fill(0, 0, 2, shared);
+
+        edited.fill(0, 0, 2, null);
+        registry.release(shared);
+        Task next = new Task("next", 2);
+        edited.fill(0, 4, 2, next);
+
+        assertSame(shared, other.getActivity(0, 0));
+        assertSame(shared, other.getActivity(0, 1));
+        assertNotEquals(registry.idOf(next), other.getSlotId(0, 0));
+    }
+
+    @Test
+    void editingAnOptimizedResultLeavesItsInputAlone() {
+        ScheduleResult input = LocalSearchOptimizerTest.generate();
+        ScheduleResult optimized = new LocalSearchOptimizer(2).optimize(input, Duration.ofMillis(100));
+        Activity[][] before = input.getTimetable().getSlots();
+        SchedulerService service = new SchedulerService();
+
+        for (int slot = 0; slot < optimized.getTimetable().getSlotsPerDay(); slot++) {
+            Activity activity = optimized.getTimetable().getActivity(0, slot);
+            if (activity instanceof Task) {
+                service.removeTask(optimized, (Task) activity);
+            }
+        }
+        for (int i = 0; i < 20; i++) {
+            service.addTask(optimized, new Task("added" + i, 2));
+        }
+
+        assertArrayEquals(before, input.getTimetable().getSlots());
+    }
+}
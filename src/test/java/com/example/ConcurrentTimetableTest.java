@@ -0,0 +1,107 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class ConcurrentTimetableTest {
+    private static final int THREADS = 8;
+    private static final int DAYS = 200;
+    // Runs start near the first word boundary, so many of them span two occupancy words
+    private static final int FIRST_START = 48;
+    private static final int LAST_START = 72;
+
+    private record Claim(int day, int start, Task task) {
+    }
+
+    @Test
+    void racingClaimsNeverShareASlotAndLosersLeaveNothingBehind() throws Exception {
+        ConcurrentTimetable timetable = new ConcurrentTimetable(DAYS);
+
+        List<Claim> claims = race(timetable);
+
+        int[][] owner = new int[DAYS][timetable.getSlotsPerDay()];
+        for (int c = 0; c < claims.size(); c++) {
+            Claim claim = claims.get(c);
+            for (int slot = claim.start(); slot < claim.start() + claim.task().getDurationInSlots(); slot++) {
+                assertEquals(0, owner[claim.day()][slot], "slot " + slot + " of day " + claim.day() + " claimed twice");
+                owner[claim.day()][slot] = c + 1;
+            }
+        }
+        for (int day = 0; day < DAYS; day++) {
+            for (int slot = 0; slot < timetable.getSlotsPerDay(); slot++) {
+                int claim = owner[day][slot];
+                if (claim == 0) {
+                    // Bits a loser took on its first word were given back
+                    assertTrue(timetable.isFree(day, slot), "stray bit in slot " + slot + " of day " + day);
+                    assertEquals(ActivityRegistry.FREE, timetable.getSlotId(day, slot));
+                } else {
+                    assertEquals(claims.get(claim - 1).task(), timetable.getActivity(day, slot));
+                }
+            }
+        }
+    }
+
+    @Test
+    void releasingEveryClaimFreesTheWholeDay() throws Exception {
+        ConcurrentTimetable timetable = new ConcurrentTimetable(DAYS);
+
+        for (Claim claim : race(timetable)) {
+            timetable.release(claim.day(), claim.start(), claim.task().getDurationInSlots());
+        }
+
+        for (int day = 0; day < DAYS; day++) {
+            assertEquals(timetable.getSlotsPerDay(), timetable.largestFreeRun(day));
+            for (int slot = 0; slot < timetable.getSlotsPerDay(); slot++) {
+                assertEquals(ActivityRegistry.FREE, timetable.getSlotId(day, slot));
+            }
+        }
+    }
+
+    // Every thread tries runs of its own task at random starts on every day, all at once
+    private static List<Claim> race(ConcurrentTimetable timetable) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<List<Claim>>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Task task = new Task("T" + t, 4 + t, null, "any");
+            Random random = new Random(t);
+            workers.add(() -> {
+                List<Claim> won = new ArrayList<>();
+                start.await();
+                for (int day = 0; day < DAYS; day++) {
+                    for (int attempt = 0; attempt < 4; attempt++) {
+                        int slot = FIRST_START + random.nextInt(LAST_START - FIRST_START + 1);
+                        if (timetable.tryClaim(day, slot, task)) {
+                            won.add(new Claim(day, slot, task));
+                        }
+                    }
+                }
+                return won;
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<List<Claim>>> results = new ArrayList<>();
+            for (Callable<List<Claim>> worker : workers) {
+                results.add(pool.submit(worker));
+            }
+            start.countDown();
+            List<Claim> claims = new ArrayList<>();
+            for (Future<List<Claim>> result : results) {
+                claims.addAll(result.get());
+            }
+            return claims;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
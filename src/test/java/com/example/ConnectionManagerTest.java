@@ -0,0 +1,66 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConnectionManagerTest {
+    @TempDir
+    Path dir;
+
+    private ConnectionManager connections;
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        connections = ConnectionManager.forUrl("jdbc:sqlite:" + dir.resolve("scratch.db"));
+        connections.write(session -> {
+            try (Statement stmt = session.connection().createStatement()) {
+                stmt.executeUpdate("CREATE TABLE t (x INTEGER)");
+            }
+            return null;
+        });
+    }
+
+    @Test
+    void nestedTransactionIsRejectedAndRollsTheOuterBack() throws SQLException {
+        assertThrows(IllegalStateException.class, () -> connections.transaction(session -> {
+            insert(session, 1);
+            return connections.transaction(inner -> insert(inner, 2));
+        }));
+
+        assertEquals(0, count());
+    }
+
+    @Test
+    void nestedReadFailsInsteadOfWaitingForAReader() throws SQLException {
+        assertThrows(IllegalStateException.class, () -> connections.read(session -> connections.read(inner -> 0)));
+
+        // The outer reader went back to the pool
+        for (int i = 0; i <= ConnectionManager.READERS; i++) {
+            assertEquals(0, count());
+        }
+    }
+
+    private static Integer insert(ConnectionManager.Session session, int x) throws SQLException {
+        try (Statement stmt = session.connection().createStatement()) {
+            return stmt.executeUpdate("INSERT INTO t VALUES (" + x + ")");
+        }
+    }
+
+    private int count() throws SQLException {
+        return connections.read(session -> {
+            try (Statement stmt = session.connection().createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t")) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        });
+    }
+}
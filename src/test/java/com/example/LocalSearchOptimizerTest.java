@@ -0,0 +1,68 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class LocalSearchOptimizerTest {
+    @Test
+    void noProgressIsReportedAfterAnInterruptedOptimizeReturns() throws Exception {
+        AtomicInteger reports = new AtomicInteger();
+        AtomicInteger atReturn = new AtomicInteger(-1);
+        Thread[] caller = new Thread[1];
+        LocalSearchOptimizer optimizer = new LocalSearchOptimizer(4);
+        optimizer.setProgressListener((score, unscheduled, elapsedMillis) -> {
+            caller[0].interrupt();
+            // Slow and deaf to interrupts, so the worker is still in here when optimize stops
+            long until = System.nanoTime() + 50_000_000;
+            while (System.nanoTime() < until) {
+                Thread.onSpinWait();
+            }
+            reports.incrementAndGet();
+        });
+        ScheduleResult input = generate();
+
+        caller[0] = new Thread(() -> {
+            optimizer.optimize(input, Duration.ofSeconds(30));
+            atReturn.set(reports.get());
+        });
+        caller[0].start();
+        caller[0].join();
+        Thread.sleep(200);
+
+        assertEquals(reports.get(), atReturn.get());
+    }
+
+    @Test
+    void resultHasItsOwnRegistry() {
+        ScheduleResult input = generate();
+
+        ScheduleResult optimized = new LocalSearchOptimizer(2).optimize(input, Duration.ofMillis(100));
+
+        assertNotSame(input, optimized);
+        assertNotSame(input.getTimetable().getRegistry(), optimized.getTimetable().getRegistry());
+    }
+
+    static ScheduleResult generate() {
+        LocalDate start = LocalDate.of(2025, 1, 6);
+        Random random = new Random(3);
+        String[] preferences = {"morning", "evening", "any"};
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            tasks.add(new Task("T" + i, 1 + random.nextInt(10), random.nextInt(7), preferences[random.nextInt(3)]));
+        }
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            events.add(new Event("E" + i, 2 + random.nextInt(6), start.plusDays(random.nextInt(21)), 40 + random.nextInt(40)));
+        }
+        return new SchedulerService().generateTimetable(List.of(0, 1, 2, 3, 4), 36, 32, 32, tasks, events,
+                start, start.plusDays(20));
+    }
+}
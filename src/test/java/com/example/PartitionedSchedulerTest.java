@@ -0,0 +1,98 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class PartitionedSchedulerTest {
+    private static final LocalDate START = LocalDate.of(2025, 1, 1); // a Wednesday, so weeks start mid-partition
+    private static final LocalDate END = START.plusDays(120);
+    // Taken whole by an event, so tasks pinned to its weekday spill over to the fallback
+    private static final LocalDate FULL_DAY = LocalDate.of(2025, 2, 3);
+
+    @ParameterizedTest
+    @ValueSource(ints = {2, 3, 8})
+    void parallelRunPlacesEverythingWhereTheSequentialRunDoes(int parallelism) {
+        List<Task> tasks = tasks();
+        List<Event> events = events();
+
+        int[] fallbacks = new int[1];
+        GenerationControl control = new GenerationControl();
+        control.setProgressListener((phase, done, total) -> {
+            if (phase == GenerationControl.Phase.FALLBACK) {
+                fallbacks[0] = done;
+            }
+        });
+        ScheduleResult sequential = service(1).generateTimetable(List.of(0, 1, 2, 3, 4), 36, 32, 32,
+                tasks, events, START, END, control);
+        ScheduleResult parallel = service(parallelism).generateTimetable(List.of(0, 1, 2, 3, 4), 36, 32, 32,
+                tasks, events, START, END);
+
+        assertTrue(fallbacks[0] > 0, "input should send some tasks through the fallback");
+        Timetable expected = sequential.getTimetable();
+        Timetable actual = parallel.getTimetable();
+        for (int day = 0; day < expected.getDays(); day++) {
+            for (int slot = 0; slot < expected.getSlotsPerDay(); slot++) {
+                Activity want = expected.getActivity(day, slot);
+                Activity got = actual.getActivity(day, slot);
+                String where = "day " + day + ", slot " + slot;
+                if (want instanceof FixedActivity || want == null) {
+                    // Sleep and work are flyweights of each run's own registry
+                    assertEquals(want == null ? null : want.getName(), got == null ? null : got.getName(), where);
+                } else {
+                    assertSame(want, got, where);
+                }
+            }
+        }
+        assertEquals(sequential.getUnscheduledTasks(), parallel.getUnscheduledTasks());
+    }
+
+    private static SchedulerService service(int parallelism) {
+        SchedulerService service = new SchedulerService();
+        service.setParallelism(parallelism);
+        return service;
+    }
+
+    // Floating, weekday-pinned and date-pinned tasks mixed in one list, several chunks long
+    private static List<Task> tasks() {
+        Random random = new Random(11);
+        String[] preferences = {"morning", "evening", "any"};
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            int kind = random.nextInt(4);
+            Task task = new Task("T" + i, 1 + random.nextInt(12), kind == 1 ? random.nextInt(7) : null,
+                    preferences[random.nextInt(3)]);
+            if (kind == 2) {
+                task.setDate(START.plusDays(random.nextInt(121)));
+            }
+            tasks.add(task);
+            // Many long Monday tasks: more than the Mondays hold, with one Monday taken whole
+            if (i % 4 == 0) {
+                tasks.add(new Task("M" + i, 10, 0, "any"));
+            }
+        }
+        return tasks;
+    }
+
+    private static List<Event> events() {
+        Random random = new Random(5);
+        List<Event> events = new ArrayList<>();
+        events.add(new Event("all day", 96, FULL_DAY, 0));
+        for (int i = 0; i < 40; i++) {
+            LocalDate date = START.plusDays(random.nextInt(121));
+            // Pairs on the same date and near the same start overlap
+            events.add(new Event("E" + i, 2 + random.nextInt(10), date, 30 + random.nextInt(50)));
+            events.add(new Event("F" + i, 2 + random.nextInt(10), date, 30 + random.nextInt(50)));
+        }
+        // Runs past midnight into the next day, across a partition boundary
+        events.add(new Event("overnight", 12, START.plusDays(6), 90));
+        return events;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class QueryPlansTest {
+    @TempDir
+    Path dir;
+
+    @ParameterizedTest
+    @EnumSource(ActivityRepository.Storage.class)
+    void noHotQueryScansATable(ActivityRepository.Storage storage) throws Exception {
+        ActivityRepository repository = new ActivityRepository(scratchUrl(storage.name()), storage);
+
+        assertEquals(List.of(), repository.checkQueryPlans());
+    }
+
+    @Test
+    void reportsAQueryWithoutAnIndex() throws Exception {
+        String url = scratchUrl("unindexed");
+        new ActivityRepository(url, ActivityRepository.Storage.SPANS);
+        Map<String, String> queries = Map.of("by duration", "SELECT id FROM activities WHERE durationInSlots = ?");
+
+        List<String> scans = ConnectionManager.forUrl(url).read(session -> QueryPlans.tableScans(session, queries));
+
+        assertEquals(List.of("by duration: SCAN activities"), scans);
+    }
+
+    private String scratchUrl(String name) {
+        return "jdbc:sqlite:" + dir.resolve(name + ".db");
+    }
+}
@@ -0,0 +1,81 @@
+package com.example;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RecurrenceRuleTest {
+    private static final LocalDate WEDNESDAY = LocalDate.of(2025, 1, 1);
+
+    @Test
+    void countStillRunsFromTheStartWhenTheWindowOpensLater() {
+        RecurrenceRule rule = RecurrenceRule.daily(WEDNESDAY).times(5);
+
+        assertEquals(dates(3, 4, 5), between(rule, 3, 30));
+        assertEquals(List.of(), between(rule, 6, 30));
+    }
+
+    @Test
+    void countedEveryNDaysRuleSkipsTheOccurrencesBeforeTheWindow() {
+        // Occurrences on days 1, 4, 7 and 10
+        RecurrenceRule rule = RecurrenceRule.everyNDays(WEDNESDAY, 3).times(4);
+
+        assertEquals(dates(7, 10), between(rule, 5, 30));
+        assertEquals(dates(7, 10), between(rule, 7, 30));
+        assertEquals(dates(10), between(rule, 8, 30));
+    }
+
+    @Test
+    void everyNDaysStaysAlignedToTheStart() {
+        RecurrenceRule rule = RecurrenceRule.everyNDays(WEDNESDAY, 5);
+
+        assertEquals(dates(6, 11, 16), between(rule, 3, 20));
+        assertEquals(dates(11, 16), between(rule, 11, 16));
+        assertEquals(dates(1, 6), between(rule.until(WEDNESDAY.plusDays(7)), -10, 30));
+    }
+
+    @Test
+    void weeklyRuleStartingMidWeekSkipsEarlierWeekdaysOfThatWeek() {
+        // Mon, Wed and Fri from a Wednesday: Monday the 30th comes before the start
+        RecurrenceRule rule = RecurrenceRule.weekly(WEDNESDAY, List.of(0, 2, 4));
+
+        assertEquals(dates(1, 3, 6, 8), between(rule, -5, 8));
+    }
+
+    @Test
+    void countedWeeklyRuleStartingMidWeekCountsOnlyFromTheStart() {
+        // Wed 1, Fri 3, Mon 6, Wed 8, then the count is used up
+        RecurrenceRule rule = RecurrenceRule.weekly(WEDNESDAY, List.of(0, 2, 4)).times(4);
+
+        assertEquals(dates(6, 8), between(rule, 4, 31));
+        assertEquals(dates(8), between(rule, 7, 31));
+        assertEquals(dates(1, 3, 6, 8), between(rule, 1, 31));
+    }
+
+    @Test
+    void countedWeeklyRuleWhoseFirstWeekdayIsAfterTheStart() {
+        // Mondays only from a Wednesday: 6, 13, 20
+        RecurrenceRule rule = RecurrenceRule.weekly(WEDNESDAY, List.of(0)).times(3);
+
+        assertEquals(dates(13, 20), between(rule, 10, 31));
+        assertEquals(List.of(), between(rule, 21, 31));
+    }
+
+    private static List<LocalDate> between(RecurrenceRule rule, int fromDay, int toDay) {
+        List<LocalDate> dates = new ArrayList<>();
+        rule.between(WEDNESDAY.plusDays(fromDay - 1), WEDNESDAY.plusDays(toDay - 1)).forEach(dates::add);
+        return dates;
+    }
+
+    // Days of January 2025
+    private static List<LocalDate> dates(int... days) {
+        List<LocalDate> dates = new ArrayList<>();
+        for (int day : days) {
+            dates.add(LocalDate.of(2025, 1, day));
+        }
+        return dates;
+    }
+}